@@ -0,0 +1,93 @@
+package ru.zhadaev.schoolsecurity.api.conditional;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import ru.zhadaev.schoolsecurity.exception.PreconditionFailedException;
+
+import java.util.function.Supplier;
+
+/**
+ * Strong ETags derived from what the database already tracks: {@code "<id>-<version>"} for a single
+ * resource, with the change stamp of embedded relations appended where there are any, and
+ * {@code "list-<change stamp>-<query hash>"} for a page. They are computed before the body is loaded,
+ * so a matching {@code If-None-Match} is answered with 304 without mapping or serializing anything.
+ */
+public final class EntityTags {
+    private static final String ANY = "*";
+    private static final String WEAK_PREFIX = "W/";
+
+    private EntityTags() {
+    }
+
+    public static String of(Object id, long version) {
+        return quote(id + "-" + version);
+    }
+
+    public static String of(Object id, long version, long relationsStamp) {
+        return quote(id + "-" + version + "-" + relationsStamp);
+    }
+
+    public static String ofList(long changeStamp, String queryString) {
+        int queryHash = (queryString == null) ? 0 : queryString.hashCode();
+        return quote("list-" + changeStamp + "-" + Integer.toHexString(queryHash));
+    }
+
+    public static <T> ResponseEntity<T> conditional(String ifNoneMatch, String etag, Supplier<T> body) {
+        CacheControl revalidate = CacheControl.noCache().cachePrivate();
+        if (matchesAny(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(revalidate).build();
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(revalidate).body(body.get());
+    }
+
+    /**
+     * Extracts the version from an {@code If-Match} tag issued for {@code id}. Returns {@code null}
+     * when the header is absent or {@code *}, which leaves the update unconditional. The embedded
+     * relations stamp is not compared: it guards the cached representation, not the row being written.
+     */
+    public static Long expectedVersion(String ifMatch, Object id) {
+        if (ifMatch == null || ifMatch.isBlank() || ANY.equals(ifMatch.trim())) {
+            return null;
+        }
+        String prefix = id + "-";
+        for (String tag : ifMatch.split(",")) {
+            String value = tag.trim();
+            if (value.length() < 2 || !value.startsWith("\"") || !value.endsWith("\"")) {
+                continue;
+            }
+            value = value.substring(1, value.length() - 1);
+            if (!value.startsWith(prefix)) {
+                continue;
+            }
+            String rest = value.substring(prefix.length());
+            int end = rest.indexOf('-');
+            try {
+                return Long.parseLong((end < 0) ? rest : rest.substring(0, end));
+            } catch (NumberFormatException e) {
+                break;
+            }
+        }
+        throw new PreconditionFailedException(String.format("If-Match %s does not match the resource with id = %s", ifMatch, id));
+    }
+
+    private static boolean matchesAny(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            String value = tag.trim();
+            if (value.startsWith(WEAK_PREFIX)) {
+                value = value.substring(WEAK_PREFIX.length());
+            }
+            if (ANY.equals(value) || etag.equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String quote(String value) {
+        return "\"" + value + "\"";
+    }
+}
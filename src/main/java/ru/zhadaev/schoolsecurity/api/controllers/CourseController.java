@@ -1,15 +1,24 @@
 package ru.zhadaev.schoolsecurity.api.controllers;
 
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import ru.zhadaev.schoolsecurity.api.conditional.EntityTags;
 import ru.zhadaev.schoolsecurity.api.dto.CourseDto;
+import ru.zhadaev.schoolsecurity.api.paging.KeysetCursor;
+import ru.zhadaev.schoolsecurity.api.patch.MergePatches;
 import ru.zhadaev.schoolsecurity.api.validation.Marker;
 import ru.zhadaev.schoolsecurity.service.CourseService;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import javax.validation.constraints.Positive;
 import java.util.List;
 import java.util.UUID;
 
@@ -19,10 +28,25 @@ import java.util.UUID;
 @Validated
 public class CourseController {
     private final CourseService courseService;
+    private final MergePatches mergePatches;
 
     @GetMapping()
-    public List<CourseDto> findAll(Pageable pageable) {
-        return courseService.findAll(pageable);
+    public ResponseEntity<List<CourseDto>> findAll(Pageable pageable,
+                                                   @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                   HttpServletRequest request) {
+        String etag = EntityTags.ofList(courseService.changeStamp(), request.getQueryString());
+        return EntityTags.conditional(ifNoneMatch, etag, () -> courseService.findAll(pageable));
+    }
+
+    @GetMapping(params = "limit")
+    public ResponseEntity<List<CourseDto>> findAllAfter(@RequestParam(name = "after", required = false) String after,
+                                                        @RequestParam(name = "limit")
+                                                        @Positive(message = "The limit must be greater than zero") int limit) {
+        KeysetCursor cursor = (after == null) ? null : KeysetCursor.decode(after);
+        Slice<CourseDto> page = (cursor == null) ?
+                courseService.findAllAfter(null, null, limit)
+                : courseService.findAllAfter(cursor.getKey(), cursor.getId(), limit);
+        return KeysetCursor.toResponse(page, CourseDto::getName, CourseDto::getId);
     }
 
     @PostMapping()
@@ -33,8 +57,10 @@ public class CourseController {
     }
 
     @GetMapping("/{id}")
-    public CourseDto findById(@PathVariable("id") UUID id) {
-        return courseService.findById(id);
+    public ResponseEntity<CourseDto> findById(@PathVariable("id") UUID id,
+                                              @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = EntityTags.of(id, courseService.findVersionById(id));
+        return EntityTags.conditional(ifNoneMatch, etag, () -> courseService.findById(id));
     }
 
     @DeleteMapping("/{id}")
@@ -50,14 +76,25 @@ public class CourseController {
     @PutMapping("/{id}")
     @ResponseStatus(HttpStatus.ACCEPTED)
     @Validated(Marker.OnPostPut.class)
-    public CourseDto updatePut(@RequestBody @Valid CourseDto courseDto, @PathVariable UUID id) {
-        return courseService.updatePut(courseDto, id);
+    public CourseDto updatePut(@RequestBody @Valid CourseDto courseDto, @PathVariable UUID id,
+                               @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return courseService.updatePut(courseDto, id, EntityTags.expectedVersion(ifMatch, id));
     }
 
     @PatchMapping("/{id}")
     @ResponseStatus(HttpStatus.ACCEPTED)
     @Validated(Marker.OnPatch.class)
-    public CourseDto updatePatch(@RequestBody @Valid CourseDto courseDto, @PathVariable("id") UUID id) {
-        return courseService.updatePatch(courseDto, id);
+    public CourseDto updatePatch(@RequestBody @Valid CourseDto courseDto, @PathVariable("id") UUID id,
+                                 @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return courseService.updatePatch(courseDto, id, EntityTags.expectedVersion(ifMatch, id));
+    }
+
+    @PatchMapping(value = "/{id}", consumes = MergePatches.MEDIA_TYPE)
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public CourseDto mergePatch(@RequestBody ObjectNode document, @PathVariable("id") UUID id,
+                                @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return courseService.mergePatch(
+                mergePatches.read(document, CourseDto.class, Marker.OnPatch.class, Marker.OnPostPut.class),
+                id, EntityTags.expectedVersion(ifMatch, id));
     }
 }
@@ -1,16 +1,27 @@
 package ru.zhadaev.schoolsecurity.api.controllers;
 
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import ru.zhadaev.schoolsecurity.api.conditional.EntityTags;
 import ru.zhadaev.schoolsecurity.api.dto.GroupDto;
+import ru.zhadaev.schoolsecurity.api.paging.KeysetCursor;
+import ru.zhadaev.schoolsecurity.api.patch.MergePatches;
+import ru.zhadaev.schoolsecurity.api.validation.Marker;
 import ru.zhadaev.schoolsecurity.service.GroupService;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import javax.validation.groups.Default;
 import java.util.List;
 import java.util.UUID;
 
@@ -21,12 +32,27 @@ import java.util.UUID;
 @Slf4j
 public class GroupController {
     private final GroupService groupService;
+    private final MergePatches mergePatches;
 
     @GetMapping()
-    public List<GroupDto> findAll(@RequestParam(name = "numberStudents", required = false)
-                                  @Valid @PositiveOrZero(message = "The number of students must be greater than or equal to zero") Integer numberStudents,
-                                  Pageable pageable) {
-        return groupService.findAll(numberStudents, pageable);
+    public ResponseEntity<List<GroupDto>> findAll(@RequestParam(name = "numberStudents", required = false)
+                                                  @Valid @PositiveOrZero(message = "The number of students must be greater than or equal to zero") Integer numberStudents,
+                                                  Pageable pageable,
+                                                  @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                  HttpServletRequest request) {
+        String etag = EntityTags.ofList(groupService.changeStamp(numberStudents), request.getQueryString());
+        return EntityTags.conditional(ifNoneMatch, etag, () -> groupService.findAll(numberStudents, pageable));
+    }
+
+    @GetMapping(params = {"limit", "!numberStudents"})
+    public ResponseEntity<List<GroupDto>> findAllAfter(@RequestParam(name = "after", required = false) String after,
+                                                       @RequestParam(name = "limit")
+                                                       @Positive(message = "The limit must be greater than zero") int limit) {
+        KeysetCursor cursor = (after == null) ? null : KeysetCursor.decode(after);
+        Slice<GroupDto> page = (cursor == null) ?
+                groupService.findAllAfter(null, null, limit)
+                : groupService.findAllAfter(cursor.getKey(), cursor.getId(), limit);
+        return KeysetCursor.toResponse(page, GroupDto::getName, GroupDto::getId);
     }
 
     @PostMapping()
@@ -36,8 +62,10 @@ public class GroupController {
     }
 
     @GetMapping("/{id}")
-    public GroupDto findById(@PathVariable("id") UUID id) {
-        return groupService.findById(id);
+    public ResponseEntity<GroupDto> findById(@PathVariable("id") UUID id,
+                                             @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = EntityTags.of(id, groupService.findVersionById(id));
+        return EntityTags.conditional(ifNoneMatch, etag, () -> groupService.findById(id));
     }
 
     @DeleteMapping("/{id}")
@@ -52,13 +80,24 @@ public class GroupController {
 
     @PutMapping("/{id}")
     @ResponseStatus(HttpStatus.ACCEPTED)
-    public GroupDto updatePut(@RequestBody @Valid GroupDto groupDto, @PathVariable("id") UUID id) {
-        return groupService.updatePut(groupDto, id);
+    public GroupDto updatePut(@RequestBody @Valid GroupDto groupDto, @PathVariable("id") UUID id,
+                              @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return groupService.updatePut(groupDto, id, EntityTags.expectedVersion(ifMatch, id));
     }
 
     @PatchMapping("/{id}")
     @ResponseStatus(HttpStatus.ACCEPTED)
-    public GroupDto updatePatch(@RequestBody @Valid GroupDto groupDto, @PathVariable("id") UUID id) {
-        return groupService.updatePatch(groupDto, id);
+    public GroupDto updatePatch(@RequestBody @Valid GroupDto groupDto, @PathVariable("id") UUID id,
+                                @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return groupService.updatePatch(groupDto, id, EntityTags.expectedVersion(ifMatch, id));
+    }
+
+    @PatchMapping(value = "/{id}", consumes = MergePatches.MEDIA_TYPE)
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public GroupDto mergePatch(@RequestBody ObjectNode document, @PathVariable("id") UUID id,
+                               @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return groupService.mergePatch(
+                mergePatches.read(document, GroupDto.class, Marker.OnPatch.class, Default.class),
+                id, EntityTags.expectedVersion(ifMatch, id));
     }
 }
@@ -1,11 +1,16 @@
 package ru.zhadaev.schoolsecurity.api.controllers;
 
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import ru.zhadaev.schoolsecurity.api.conditional.EntityTags;
 import ru.zhadaev.schoolsecurity.api.dto.PermissionDto;
+import ru.zhadaev.schoolsecurity.api.patch.MergePatches;
 import ru.zhadaev.schoolsecurity.api.validation.Marker;
 import ru.zhadaev.schoolsecurity.service.PermissionService;
 
@@ -18,6 +23,7 @@ import java.util.List;
 @Validated
 public class PermissionController {
     private final PermissionService permissionService;
+    private final MergePatches mergePatches;
 
     @GetMapping()
     public List<PermissionDto> findAll(Pageable pageable) {
@@ -32,8 +38,10 @@ public class PermissionController {
     }
 
     @GetMapping("/{id}")
-    public PermissionDto findById(@PathVariable("id") String id) {
-        return permissionService.findById(id);
+    public ResponseEntity<PermissionDto> findById(@PathVariable("id") String id,
+                                                  @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = EntityTags.of(id, permissionService.findVersionById(id));
+        return EntityTags.conditional(ifNoneMatch, etag, () -> permissionService.findById(id));
     }
 
     @DeleteMapping("/{id}")
@@ -48,7 +56,17 @@ public class PermissionController {
 
     @PatchMapping("/{id}")
     @ResponseStatus(HttpStatus.ACCEPTED)
-    public PermissionDto updatePatch(@RequestBody PermissionDto permissionDto, @PathVariable("id") String id) {
-        return permissionService.updatePatch(permissionDto, id);
+    public PermissionDto updatePatch(@RequestBody PermissionDto permissionDto, @PathVariable("id") String id,
+                                     @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return permissionService.updatePatch(permissionDto, id, EntityTags.expectedVersion(ifMatch, id));
+    }
+
+    @PatchMapping(value = "/{id}", consumes = MergePatches.MEDIA_TYPE)
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public PermissionDto mergePatch(@RequestBody ObjectNode document, @PathVariable("id") String id,
+                                    @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return permissionService.mergePatch(
+                mergePatches.read(document, PermissionDto.class, Marker.OnPatch.class, Marker.OnPostPut.class),
+                id, EntityTags.expectedVersion(ifMatch, id));
     }
 }
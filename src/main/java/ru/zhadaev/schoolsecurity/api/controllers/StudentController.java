@@ -1,15 +1,36 @@
 package ru.zhadaev.schoolsecurity.api.controllers;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import ru.zhadaev.schoolsecurity.api.conditional.EntityTags;
+import ru.zhadaev.schoolsecurity.api.dto.BulkImportResult;
 import ru.zhadaev.schoolsecurity.api.dto.StudentDto;
+import ru.zhadaev.schoolsecurity.api.paging.KeysetCursor;
+import ru.zhadaev.schoolsecurity.api.patch.MergePatches;
 import ru.zhadaev.schoolsecurity.api.validation.Marker;
+import ru.zhadaev.schoolsecurity.service.StudentBulkDeleter;
+import ru.zhadaev.schoolsecurity.service.StudentBulkImporter;
 import ru.zhadaev.schoolsecurity.service.StudentService;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import javax.validation.constraints.Positive;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.UUID;
 
@@ -18,12 +39,55 @@ import java.util.UUID;
 @RequestMapping("/api/students")
 @Validated
 public class StudentController {
+    private static final String NDJSON = "application/x-ndjson";
+
     private final StudentService studentService;
+    private final StudentBulkImporter studentBulkImporter;
+    private final StudentBulkDeleter studentBulkDeleter;
+    private final MergePatches mergePatches;
+    private final ObjectMapper objectMapper;
 
     @GetMapping()
-    public List<StudentDto> findAll(@RequestParam(name = "courseId", required = false)  UUID courseId,
-                                    Pageable pageable) {
-        return studentService.findAll(courseId, pageable);
+    public ResponseEntity<List<StudentDto>> findAll(@RequestParam(name = "courseId", required = false)  UUID courseId,
+                                                    Pageable pageable,
+                                                    @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                    HttpServletRequest request) {
+        String etag = EntityTags.ofList(studentService.changeStamp(), request.getQueryString());
+        return EntityTags.conditional(ifNoneMatch, etag, () -> studentService.findAll(courseId, pageable));
+    }
+
+    @GetMapping(params = {"limit", "!courseId"})
+    public ResponseEntity<List<StudentDto>> findAllAfter(@RequestParam(name = "after", required = false) String after,
+                                                         @RequestParam(name = "limit")
+                                                         @Positive(message = "The limit must be greater than zero") int limit) {
+        KeysetCursor cursor = (after == null) ? null : KeysetCursor.decode(after);
+        Slice<StudentDto> page = (cursor == null) ?
+                studentService.findAllAfter(null, null, limit)
+                : studentService.findAllAfter(cursor.getKey(), cursor.getId(), limit);
+        return KeysetCursor.toResponse(page, StudentDto::getLastName, StudentDto::getId);
+    }
+
+    @GetMapping(value = "/export", produces = NDJSON)
+    public void export(@RequestParam(name = "includeRelations", defaultValue = "true") boolean includeRelations,
+                       HttpServletResponse response) throws IOException {
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        ObjectWriter writer = objectMapper.writerFor(StudentDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            generator.setRootValueSeparator(null);
+            studentService.export(includeRelations, chunk -> {
+                try {
+                    for (StudentDto student : chunk) {
+                        writer.writeValue(generator, student);
+                        generator.writeRaw('\n');
+                    }
+                    generator.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
     }
 
     @PostMapping()
@@ -33,9 +97,16 @@ public class StudentController {
         return studentService.save(studentDto);
     }
 
+    @PostMapping(value = "/bulk", consumes = {NDJSON, MediaType.APPLICATION_JSON_VALUE})
+    public BulkImportResult saveAll(HttpServletRequest request) throws IOException {
+        return studentBulkImporter.importStudents(request.getInputStream());
+    }
+
     @GetMapping("/{id}")
-    public StudentDto findById(@PathVariable("id") UUID id) {
-        return studentService.findById(id);
+    public ResponseEntity<StudentDto> findById(@PathVariable("id") UUID id,
+                                               @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = EntityTags.of(id, studentService.findVersionById(id), studentService.relationsChangeStamp());
+        return EntityTags.conditional(ifNoneMatch, etag, () -> studentService.findById(id));
     }
 
     @DeleteMapping("/{id}")
@@ -44,21 +115,35 @@ public class StudentController {
     }
 
     @DeleteMapping()
-    public void deleteAll() {
-        studentService.deleteAll();
+    public ResponseEntity<Void> deleteAll(@RequestParam(name = "groupId", required = false) UUID groupId,
+                                          @RequestParam(name = "courseId", required = false) UUID courseId) {
+        return studentBulkDeleter.deleteStudents(groupId, courseId) ?
+                ResponseEntity.ok().build()
+                : ResponseEntity.accepted().build();
     }
 
     @PutMapping("/{id}")
     @ResponseStatus(HttpStatus.ACCEPTED)
     @Validated(Marker.OnPostPut.class)
-    public StudentDto updatePut(@RequestBody @Valid StudentDto studentDto, @PathVariable UUID id) {
-        return studentService.updatePut(studentDto, id);
+    public StudentDto updatePut(@RequestBody @Valid StudentDto studentDto, @PathVariable UUID id,
+                                @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return studentService.updatePut(studentDto, id, EntityTags.expectedVersion(ifMatch, id));
     }
 
     @PatchMapping("/{id}")
     @ResponseStatus(HttpStatus.ACCEPTED)
     @Validated(Marker.OnPatch.class)
-    public StudentDto updatePatch(@RequestBody @Valid StudentDto studentDto, @PathVariable("id") UUID id) {
-        return studentService.updatePatch(studentDto, id);
+    public StudentDto updatePatch(@RequestBody @Valid StudentDto studentDto, @PathVariable("id") UUID id,
+                                  @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return studentService.updatePatch(studentDto, id, EntityTags.expectedVersion(ifMatch, id));
+    }
+
+    @PatchMapping(value = "/{id}", consumes = MergePatches.MEDIA_TYPE)
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public StudentDto mergePatch(@RequestBody ObjectNode document, @PathVariable("id") UUID id,
+                                 @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return studentService.mergePatch(
+                mergePatches.read(document, StudentDto.class, Marker.OnPatch.class, Marker.OnPostPut.class),
+                id, EntityTags.expectedVersion(ifMatch, id));
     }
 }
\ No newline at end of file
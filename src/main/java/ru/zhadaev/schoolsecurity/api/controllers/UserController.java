@@ -1,15 +1,23 @@
 package ru.zhadaev.schoolsecurity.api.controllers;
 
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import ru.zhadaev.schoolsecurity.api.conditional.EntityTags;
 import ru.zhadaev.schoolsecurity.api.dto.UserDto;
+import ru.zhadaev.schoolsecurity.api.paging.KeysetCursor;
+import ru.zhadaev.schoolsecurity.api.patch.MergePatches;
 import ru.zhadaev.schoolsecurity.api.validation.Marker;
 import ru.zhadaev.schoolsecurity.service.UserService;
 
 import javax.validation.Valid;
+import javax.validation.constraints.Positive;
 import java.util.List;
 import java.util.UUID;
 
@@ -19,12 +27,24 @@ import java.util.UUID;
 @Validated
 public class UserController {
     private final UserService userService;
+    private final MergePatches mergePatches;
 
     @GetMapping()
     public List<UserDto> findAll(Pageable pageable) {
         return userService.findAll(pageable);
     }
 
+    @GetMapping(params = "limit")
+    public ResponseEntity<List<UserDto>> findAllAfter(@RequestParam(name = "after", required = false) String after,
+                                                      @RequestParam(name = "limit")
+                                                      @Positive(message = "The limit must be greater than zero") int limit) {
+        KeysetCursor cursor = (after == null) ? null : KeysetCursor.decode(after);
+        Slice<UserDto> page = (cursor == null) ?
+                userService.findAllAfter(null, null, limit)
+                : userService.findAllAfter(cursor.getKey(), cursor.getId(), limit);
+        return KeysetCursor.toResponse(page, UserDto::getLogin, UserDto::getId);
+    }
+
     @PostMapping()
     @ResponseStatus(HttpStatus.CREATED)
     @Validated(Marker.OnPostPut.class)
@@ -33,8 +53,10 @@ public class UserController {
     }
 
     @GetMapping("/{id}")
-    public UserDto findById(@PathVariable("id") UUID id) {
-        return userService.findById(id);
+    public ResponseEntity<UserDto> findById(@PathVariable("id") UUID id,
+                                            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = EntityTags.of(id, userService.findVersionById(id), userService.relationsChangeStamp());
+        return EntityTags.conditional(ifNoneMatch, etag, () -> userService.findById(id));
     }
 
     @DeleteMapping("/{id}")
@@ -50,14 +72,25 @@ public class UserController {
     @PutMapping("/{id}")
     @ResponseStatus(HttpStatus.ACCEPTED)
     @Validated(Marker.OnPostPut.class)
-    public UserDto updatePut(@RequestBody @Valid UserDto userDto, @PathVariable UUID id) {
-        return userService.updatePut(userDto, id);
+    public UserDto updatePut(@RequestBody @Valid UserDto userDto, @PathVariable UUID id,
+                             @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return userService.updatePut(userDto, id, EntityTags.expectedVersion(ifMatch, id));
     }
 
     @PatchMapping("/{id}")
     @ResponseStatus(HttpStatus.ACCEPTED)
     @Validated(Marker.OnPatch.class)
-    public UserDto updatePatch(@RequestBody @Valid UserDto userDto, @PathVariable("id") UUID id) {
-        return userService.updatePatch(userDto, id);
+    public UserDto updatePatch(@RequestBody @Valid UserDto userDto, @PathVariable("id") UUID id,
+                               @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return userService.updatePatch(userDto, id, EntityTags.expectedVersion(ifMatch, id));
+    }
+
+    @PatchMapping(value = "/{id}", consumes = MergePatches.MEDIA_TYPE)
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public UserDto mergePatch(@RequestBody ObjectNode document, @PathVariable("id") UUID id,
+                              @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return userService.mergePatch(
+                mergePatches.read(document, UserDto.class, Marker.OnPatch.class, Marker.OnPostPut.class),
+                id, EntityTags.expectedVersion(ifMatch, id));
     }
 }
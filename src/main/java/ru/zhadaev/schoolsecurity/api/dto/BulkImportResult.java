@@ -0,0 +1,13 @@
+package ru.zhadaev.schoolsecurity.api.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class BulkImportResult {
+    private int received;
+    private int saved;
+    private List<BulkItemError> errors = new ArrayList<>();
+}
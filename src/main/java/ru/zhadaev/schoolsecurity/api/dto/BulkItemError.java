@@ -0,0 +1,12 @@
+package ru.zhadaev.schoolsecurity.api.dto;
+
+import lombok.Data;
+import ru.zhadaev.schoolsecurity.api.validation.Violation;
+
+import java.util.List;
+
+@Data
+public class BulkItemError {
+    private final int index;
+    private final List<Violation> violations;
+}
@@ -1,11 +1,15 @@
 package ru.zhadaev.schoolsecurity.api.errors;
 
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import ru.zhadaev.schoolsecurity.exception.AlreadyExistsException;
+import ru.zhadaev.schoolsecurity.exception.InvalidCursorException;
+import ru.zhadaev.schoolsecurity.exception.InvalidReferenceException;
 import ru.zhadaev.schoolsecurity.exception.NotFoundException;
+import ru.zhadaev.schoolsecurity.exception.PreconditionFailedException;
 
 import java.sql.Timestamp;
 
@@ -33,4 +37,48 @@ public class CustomExceptionHandler {
                         status.getReasonPhrase(),
                         ex.getMessage()));
     }
+
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<CustomError> onInvalidCursorException(InvalidCursorException ex) {
+        HttpStatus status = HttpStatus.BAD_REQUEST;
+        return ResponseEntity
+                .status(status)
+                .body(new CustomError(
+                        new Timestamp(System.currentTimeMillis()),
+                        status.getReasonPhrase(),
+                        ex.getMessage()));
+    }
+
+    @ExceptionHandler(InvalidReferenceException.class)
+    public ResponseEntity<CustomError> onInvalidReferenceException(InvalidReferenceException ex) {
+        HttpStatus status = HttpStatus.BAD_REQUEST;
+        return ResponseEntity
+                .status(status)
+                .body(new CustomError(
+                        new Timestamp(System.currentTimeMillis()),
+                        status.getReasonPhrase(),
+                        ex.getMessage()));
+    }
+
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<CustomError> onPreconditionFailedException(PreconditionFailedException ex) {
+        HttpStatus status = HttpStatus.PRECONDITION_FAILED;
+        return ResponseEntity
+                .status(status)
+                .body(new CustomError(
+                        new Timestamp(System.currentTimeMillis()),
+                        status.getReasonPhrase(),
+                        ex.getMessage()));
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<CustomError> onOptimisticLockingFailureException(OptimisticLockingFailureException ex) {
+        HttpStatus status = HttpStatus.CONFLICT;
+        return ResponseEntity
+                .status(status)
+                .body(new CustomError(
+                        new Timestamp(System.currentTimeMillis()),
+                        status.getReasonPhrase(),
+                        "The resource was modified concurrently, reload it and retry"));
+    }
 }
@@ -1,6 +1,8 @@
 package ru.zhadaev.schoolsecurity.api.mappers;
 
+import org.mapstruct.BeanMapping;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.mapstruct.MappingTarget;
 import org.mapstruct.NullValuePropertyMappingStrategy;
 import ru.zhadaev.schoolsecurity.api.dto.CourseDto;
@@ -12,7 +14,17 @@ import java.util.List;
         nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
 public interface CourseMapper {
     CourseDto toDto(Course course);
+    @Mapping(target = "enrollmentCount", ignore = true)
+    @Mapping(target = "version", ignore = true)
     Course toEntity(CourseDto courseDto);
     List<CourseDto> toDto(List<Course> courses);
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "enrollmentCount", ignore = true)
+    @Mapping(target = "version", ignore = true)
     void update(CourseDto courseDto, @MappingTarget Course course);
+    @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.SET_TO_NULL)
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "enrollmentCount", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    void merge(CourseDto courseDto, @MappingTarget Course course);
 }
@@ -0,0 +1,91 @@
+package ru.zhadaev.schoolsecurity.api.mappers;
+
+import lombok.RequiredArgsConstructor;
+import org.mapstruct.Named;
+import org.springframework.stereotype.Component;
+import ru.zhadaev.schoolsecurity.api.dto.CourseDto;
+import ru.zhadaev.schoolsecurity.api.dto.GroupDto;
+import ru.zhadaev.schoolsecurity.api.dto.PermissionDto;
+import ru.zhadaev.schoolsecurity.dao.entities.Course;
+import ru.zhadaev.schoolsecurity.dao.entities.Group;
+import ru.zhadaev.schoolsecurity.dao.entities.Permission;
+import ru.zhadaev.schoolsecurity.exception.InvalidReferenceException;
+
+import javax.persistence.EntityManager;
+import java.util.Collections;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Turns related DTOs into references to the persistent entities when a managed entity is patched in place.
+ * The generated nested mappings would instead copy the DTO fields into the currently referenced group,
+ * course or permission, and dirty checking would write them back to that row. A reference without an id
+ * is rejected, as there is nothing it could refer to.
+ */
+@Component
+@RequiredArgsConstructor
+public class EntityReferences {
+    private final EntityManager entityManager;
+
+    @Named("groupReference")
+    public Group group(GroupDto groupDto) {
+        if (groupDto == null) {
+            return null;
+        }
+        return entityManager.getReference(Group.class, requireId(groupDto.getId(), "group"));
+    }
+
+    @Named("courseReferences")
+    public Set<Course> courses(Set<CourseDto> courseDtos) {
+        if (courseDtos == null) {
+            return null;
+        }
+        return courseDtos.stream()
+                .map(courseDto -> entityManager.getReference(Course.class, requireId(courseDto.getId(), "course")))
+                .collect(Collectors.toSet());
+    }
+
+    @Named("permissionReferences")
+    public Set<Permission> permissions(Set<PermissionDto> permissionDtos) {
+        if (permissionDtos == null) {
+            return null;
+        }
+        return permissionDtos.stream()
+                .map(permissionDto -> entityManager.getReference(Permission.class,
+                        requireId(permissionDto.getName(), "permission")))
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Points the managed {@code courses} collection at the given courses. It is left alone when it
+     * already holds them, since touching the collection would bump the owner's version on its own.
+     */
+    public void replaceCourses(Set<Course> courses, Set<CourseDto> courseDtos) {
+        Set<CourseDto> wanted = (courseDtos == null) ? Collections.emptySet() : courseDtos;
+        Set<UUID> ids = wanted.stream()
+                .map(CourseDto::getId)
+                .collect(Collectors.toSet());
+        if (!ids.equals(courses.stream().map(Course::getId).collect(Collectors.toSet()))) {
+            courses.clear();
+            courses.addAll(courses(wanted));
+        }
+    }
+
+    public void replacePermissions(Set<Permission> permissions, Set<PermissionDto> permissionDtos) {
+        Set<String> names = permissionDtos.stream()
+                .map(PermissionDto::getName)
+                .collect(Collectors.toSet());
+        if (!names.equals(permissions.stream().map(Permission::getName).collect(Collectors.toSet()))) {
+            permissions.clear();
+            permissions.addAll(permissions(permissionDtos));
+        }
+    }
+
+    private static <T> T requireId(T id, String entity) {
+        if (id == null) {
+            throw new InvalidReferenceException(String.format("The %s reference must have an id", entity));
+        }
+        return id;
+    }
+}
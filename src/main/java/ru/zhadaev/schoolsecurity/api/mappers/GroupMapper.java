@@ -1,6 +1,7 @@
 package ru.zhadaev.schoolsecurity.api.mappers;
 
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.mapstruct.MappingTarget;
 import org.mapstruct.NullValuePropertyMappingStrategy;
 import ru.zhadaev.schoolsecurity.api.dto.GroupDto;
@@ -12,7 +13,12 @@ import java.util.List;
         nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
 public interface GroupMapper {
     GroupDto toDto(Group group);
+    @Mapping(target = "studentCount", ignore = true)
+    @Mapping(target = "version", ignore = true)
     Group toEntity(GroupDto groupDto);
     List<GroupDto> toDto(List<Group> groups);
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "studentCount", ignore = true)
+    @Mapping(target = "version", ignore = true)
     void update(GroupDto groupDto, @MappingTarget Group group);
 }
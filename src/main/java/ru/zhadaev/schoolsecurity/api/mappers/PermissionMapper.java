@@ -1,6 +1,8 @@
 package ru.zhadaev.schoolsecurity.api.mappers;
 
+import org.mapstruct.BeanMapping;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.mapstruct.MappingTarget;
 import org.mapstruct.NullValuePropertyMappingStrategy;
 import ru.zhadaev.schoolsecurity.api.dto.PermissionDto;
@@ -12,7 +14,14 @@ import java.util.List;
         nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
 public interface PermissionMapper {
     PermissionDto toDto(Permission permission);
+    @Mapping(target = "version", ignore = true)
     Permission toEntity(PermissionDto permissionDto);
     List<PermissionDto> toDto(List<Permission> permissions);
+    @Mapping(target = "name", ignore = true)
+    @Mapping(target = "version", ignore = true)
     void update(PermissionDto permissionDto, @MappingTarget Permission permission);
+    @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.SET_TO_NULL)
+    @Mapping(target = "name", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    void merge(PermissionDto permissionDto, @MappingTarget Permission permission);
 }
\ No newline at end of file
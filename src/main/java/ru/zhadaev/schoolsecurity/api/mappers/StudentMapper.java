@@ -1,18 +1,53 @@
 package ru.zhadaev.schoolsecurity.api.mappers;
 
+import org.mapstruct.BeanMapping;
+import org.mapstruct.IterableMapping;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.mapstruct.MappingTarget;
+import org.mapstruct.Named;
 import org.mapstruct.NullValuePropertyMappingStrategy;
+import ru.zhadaev.schoolsecurity.api.dto.CourseDto;
+import ru.zhadaev.schoolsecurity.api.dto.GroupDto;
 import ru.zhadaev.schoolsecurity.api.dto.StudentDto;
+import ru.zhadaev.schoolsecurity.dao.entities.Course;
+import ru.zhadaev.schoolsecurity.dao.entities.Group;
 import ru.zhadaev.schoolsecurity.dao.entities.Student;
 
 import java.util.List;
 
-@Mapper(componentModel = "spring",
+@Mapper(componentModel = "spring", uses = EntityReferences.class,
         nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
 public interface StudentMapper {
     StudentDto toDto(Student student);
+    @Mapping(target = "version", ignore = true)
     Student toEntity(StudentDto studentDto);
     List<StudentDto> toDto(List<Student> students);
+    List<Student> toEntity(List<StudentDto> studentDtos);
+    @Mapping(target = "studentCount", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    Group toEntity(GroupDto groupDto);
+    @Mapping(target = "enrollmentCount", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    Course toEntity(CourseDto courseDto);
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "group", qualifiedByName = "groupReference")
+    @Mapping(target = "courses", qualifiedByName = "courseReferences")
     void update(StudentDto studentDto, @MappingTarget Student student);
+
+    @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.SET_TO_NULL)
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "group", qualifiedByName = "groupReference")
+    @Mapping(target = "courses", ignore = true)
+    void merge(StudentDto studentDto, @MappingTarget Student student);
+
+    @Named("withoutRelations")
+    @Mapping(target = "group", ignore = true)
+    @Mapping(target = "courses", ignore = true)
+    StudentDto toDtoWithoutRelations(Student student);
+
+    @IterableMapping(qualifiedByName = "withoutRelations")
+    List<StudentDto> toDtoWithoutRelations(List<Student> students);
 }
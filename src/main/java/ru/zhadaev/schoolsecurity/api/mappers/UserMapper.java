@@ -1,18 +1,33 @@
 package ru.zhadaev.schoolsecurity.api.mappers;
 
+import org.mapstruct.BeanMapping;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.mapstruct.MappingTarget;
 import org.mapstruct.NullValuePropertyMappingStrategy;
+import ru.zhadaev.schoolsecurity.api.dto.PermissionDto;
 import ru.zhadaev.schoolsecurity.api.dto.UserDto;
+import ru.zhadaev.schoolsecurity.dao.entities.Permission;
 import ru.zhadaev.schoolsecurity.dao.entities.User;
 
 import java.util.List;
 
-@Mapper(componentModel = "spring",
+@Mapper(componentModel = "spring", uses = EntityReferences.class,
         nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
 public interface UserMapper {
     UserDto toDto(User user);
+    @Mapping(target = "version", ignore = true)
     User toEntity(UserDto userDto);
+    @Mapping(target = "version", ignore = true)
+    Permission toEntity(PermissionDto permissionDto);
     List<UserDto> toDto(List<User> users);
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "permissions", qualifiedByName = "permissionReferences")
     void update(UserDto userDto, @MappingTarget User user);
+    @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.SET_TO_NULL)
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "permissions", ignore = true)
+    void merge(UserDto userDto, @MappingTarget User user);
 }
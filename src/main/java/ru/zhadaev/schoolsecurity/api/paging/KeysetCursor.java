@@ -0,0 +1,53 @@
+package ru.zhadaev.schoolsecurity.api.paging;
+
+import lombok.Data;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.ResponseEntity;
+import ru.zhadaev.schoolsecurity.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Position of the last row of a keyset page: the value of the sort key and the primary key.
+ * Clients receive it as an opaque token and pass it back in the {@code after} parameter.
+ * A {@code null} sort key is encoded as its own marker, so it is not confused with a key spelled "null".
+ */
+@Data
+public class KeysetCursor {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int UUID_LENGTH = 36;
+    private static final String NULL_KEY = "\u0000";
+
+    private final String key;
+    private final UUID id;
+
+    public String encode() {
+        String value = id + ((key == null) ? NULL_KEY : key);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static KeysetCursor decode(String token) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            UUID id = UUID.fromString(value.substring(0, UUID_LENGTH));
+            String key = value.substring(UUID_LENGTH);
+            return new KeysetCursor(NULL_KEY.equals(key) ? null : key, id);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new InvalidCursorException(String.format("Invalid cursor '%s'", token));
+        }
+    }
+
+    public static <T> ResponseEntity<List<T>> toResponse(Slice<T> slice, Function<T, String> key, Function<T, UUID> id) {
+        List<T> content = slice.getContent();
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (slice.hasNext() && !content.isEmpty()) {
+            T last = content.get(content.size() - 1);
+            response.header(NEXT_CURSOR_HEADER, new KeysetCursor(key.apply(last), id.apply(last)).encode());
+        }
+        return response.body(content);
+    }
+}
@@ -0,0 +1,77 @@
+package ru.zhadaev.schoolsecurity.api.patch;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.ConstraintViolationException;
+import javax.validation.Validator;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+/**
+ * Reads JSON merge patch documents (RFC 7396, {@code application/merge-patch+json}). Unlike a DTO bound
+ * from {@code application/json}, a member set to {@code null} clears the value and only an absent member
+ * leaves it unchanged. The document itself is validated against the patch constraints when it is read;
+ * the patched representation is validated against the full ones when the patch is applied.
+ * The patch is merged into the JSON tree of the current representation, so a nested object such as a
+ * student's group is merged member by member rather than replaced.
+ */
+@Component
+@RequiredArgsConstructor
+public class MergePatches {
+    public static final String MEDIA_TYPE = "application/merge-patch+json";
+
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+
+    public <T> UnaryOperator<T> read(ObjectNode document, Class<T> type, Class<?> documentGroup, Class<?> resultGroup) {
+        try {
+            validate(objectMapper.treeToValue(document, type), documentGroup);
+        } catch (JsonProcessingException e) {
+            throw new HttpMessageNotReadableException(e.getOriginalMessage(), e, null);
+        }
+        return current -> {
+            try {
+                T patched = objectMapper.treeToValue(merge(objectMapper.valueToTree(current), document), type);
+                validate(patched, resultGroup);
+                return patched;
+            } catch (JsonProcessingException e) {
+                throw new HttpMessageNotReadableException(e.getOriginalMessage(), e, null);
+            }
+        };
+    }
+
+    /**
+     * Applies {@code patch} to {@code target} as RFC 7396 defines it: objects are merged recursively, a
+     * {@code null} member removes the member and any other value, arrays included, replaces it.
+     * {@code target} is modified in place when it is an object.
+     */
+    static JsonNode merge(JsonNode target, JsonNode patch) {
+        if (!patch.isObject()) {
+            return patch;
+        }
+        ObjectNode result = (target != null && target.isObject()) ? (ObjectNode) target : JsonNodeFactory.instance.objectNode();
+        patch.fields().forEachRemaining(member -> {
+            if (member.getValue().isNull()) {
+                result.remove(member.getKey());
+            } else {
+                result.set(member.getKey(), merge(result.get(member.getKey()), member.getValue()));
+            }
+        });
+        return result;
+    }
+
+    private <T> void validate(T value, Class<?> group) {
+        Set<ConstraintViolation<T>> violations = validator.validate(value, group);
+        if (!violations.isEmpty()) {
+            throw new ConstraintViolationException(violations);
+        }
+    }
+}
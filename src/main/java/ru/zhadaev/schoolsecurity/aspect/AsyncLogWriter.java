@@ -0,0 +1,112 @@
+package ru.zhadaev.schoolsecurity.aspect;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.event.Level;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Moves log output off the request thread. Records go to a bounded queue drained by one daemon
+ * thread; when the queue is full the record is dropped and counted instead of blocking the caller.
+ */
+@Component
+@Slf4j
+public class AsyncLogWriter implements MeterBinder, DisposableBean {
+    private static final String METRIC_NAME = "logging.async";
+
+    private final BlockingQueue<LogRecord> queue;
+    private final LongAdder dropped = new LongAdder();
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    public AsyncLogWriter(@Value("${logging.aspect.queue-capacity:1024}") int capacity) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.worker = new Thread(this::drain, "async-log-writer");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    public void submit(Logger logger, Level level, String format, Object... arguments) {
+        if (!queue.offer(new LogRecord(logger, level, format, arguments))) {
+            dropped.increment();
+        }
+    }
+
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder(METRIC_NAME + ".dropped", dropped, LongAdder::sum)
+                .register(registry);
+        Gauge.builder(METRIC_NAME + ".queue.size", queue, BlockingQueue::size)
+                .register(registry);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        worker.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    private void drain() {
+        while (running || !queue.isEmpty()) {
+            try {
+                LogRecord record = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (record != null) {
+                    record.write();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Failed to write a log record", e);
+            }
+        }
+    }
+
+    private static final class LogRecord {
+        private final Logger logger;
+        private final Level level;
+        private final String format;
+        private final Object[] arguments;
+
+        private LogRecord(Logger logger, Level level, String format, Object[] arguments) {
+            this.logger = logger;
+            this.level = level;
+            this.format = format;
+            this.arguments = arguments;
+        }
+
+        private void write() {
+            switch (level) {
+                case ERROR:
+                    logger.error(format, arguments);
+                    break;
+                case WARN:
+                    logger.warn(format, arguments);
+                    break;
+                case INFO:
+                    logger.info(format, arguments);
+                    break;
+                case DEBUG:
+                    logger.debug(format, arguments);
+                    break;
+                default:
+                    logger.trace(format, arguments);
+            }
+        }
+    }
+}
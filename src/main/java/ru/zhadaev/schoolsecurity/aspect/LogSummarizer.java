@@ -0,0 +1,123 @@
+package ru.zhadaev.schoolsecurity.aspect;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.ResponseEntity;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Short, bounded descriptions of method arguments and results for the logging aspect:
+ * type, size and ids instead of the full {@code toString}, which for a page of DTOs is large
+ * and for users includes the password.
+ */
+final class LogSummarizer {
+    private static final int MAX_IDS = 3;
+    private static final int MAX_TEXT_LENGTH = 64;
+
+    private static final ClassValue<Method> ID_GETTERS = new ClassValue<>() {
+        @Override
+        protected Method computeValue(Class<?> type) {
+            try {
+                Method getter = type.getMethod("getId");
+                return Modifier.isStatic(getter.getModifiers()) ? null : getter;
+            } catch (NoSuchMethodException e) {
+                return null;
+            }
+        }
+    };
+
+    private LogSummarizer() {
+    }
+
+    static String summarize(Object[] values) {
+        StringBuilder summary = new StringBuilder("[");
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                summary.append(", ");
+            }
+            append(summary, values[i]);
+        }
+        return summary.append(']').toString();
+    }
+
+    static String summarize(Object value) {
+        StringBuilder summary = new StringBuilder();
+        append(summary, value);
+        return summary.toString();
+    }
+
+    private static void append(StringBuilder summary, Object value) {
+        if (value == null) {
+            summary.append("null");
+        } else if (value instanceof CharSequence) {
+            appendText(summary, value.toString());
+        } else if (value instanceof Number || value instanceof Boolean || value instanceof UUID
+                || value instanceof Enum || value instanceof Pageable) {
+            summary.append(value);
+        } else if (value instanceof ResponseEntity) {
+            ResponseEntity<?> response = (ResponseEntity<?>) value;
+            summary.append("ResponseEntity[status=").append(response.getStatusCodeValue()).append(", body=");
+            append(summary, response.getBody());
+            summary.append(']');
+        } else if (value instanceof Collection) {
+            Collection<?> collection = (Collection<?>) value;
+            summary.append(value.getClass().getSimpleName()).append("[size=").append(collection.size());
+            appendIds(summary, collection.iterator());
+            summary.append(']');
+        } else if (value instanceof Map) {
+            summary.append(value.getClass().getSimpleName()).append("[size=").append(((Map<?, ?>) value).size()).append(']');
+        } else if (value.getClass().isArray()) {
+            summary.append(value.getClass().getComponentType().getSimpleName())
+                    .append("[length=").append(java.lang.reflect.Array.getLength(value)).append(']');
+        } else {
+            summary.append(value.getClass().getSimpleName());
+            Object id = id(value);
+            if (id != null) {
+                summary.append("[id=").append(id).append(']');
+            }
+        }
+    }
+
+    private static void appendIds(StringBuilder summary, Iterator<?> elements) {
+        int shown = 0;
+        while (elements.hasNext() && shown < MAX_IDS) {
+            Object id = id(elements.next());
+            if (id == null) {
+                return;
+            }
+            summary.append(shown == 0 ? ", ids=" : ",").append(id);
+            shown++;
+        }
+        if (shown > 0 && elements.hasNext()) {
+            summary.append(",...");
+        }
+    }
+
+    private static void appendText(StringBuilder summary, String text) {
+        if (text.length() <= MAX_TEXT_LENGTH) {
+            summary.append('"').append(text).append('"');
+        } else {
+            summary.append('"').append(text, 0, MAX_TEXT_LENGTH).append("...\"(").append(text.length()).append(')');
+        }
+    }
+
+    private static Object id(Object value) {
+        if (value == null) {
+            return null;
+        }
+        Method getter = ID_GETTERS.get(value.getClass());
+        if (getter == null) {
+            return null;
+        }
+        try {
+            return getter.invoke(value);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
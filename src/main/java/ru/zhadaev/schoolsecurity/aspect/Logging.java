@@ -8,20 +8,37 @@ import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.util.Arrays;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 
 import static java.lang.String.valueOf;
 
+/**
+ * Enter/exit logging of controllers (INFO) and services (DEBUG).
+ * The level check and the sampling decision come first and allocate nothing, so a disabled or
+ * unsampled call costs only these checks. Sampled calls log summaries of arguments and results
+ * (see {@link LogSummarizer}) and hand them to {@link AsyncLogWriter}. Calls made on
+ * {@link SyntheticTraffic} threads are not logged.
+ */
 @Aspect
 @Component
 public class Logging {
-    private final ConcurrentHashMap<String, Logger> loggerMap = new ConcurrentHashMap<>();
+    private static final ClassValue<Logger> LOGGERS = new ClassValue<>() {
+        @Override
+        protected Logger computeValue(Class<?> type) {
+            return LoggerFactory.getLogger(type);
+        }
+    };
+
+    private final AsyncLogWriter writer;
+    private final double sampleRate;
 
-    private Logger logger(String fqName) {
-        return loggerMap.computeIfAbsent(fqName, LoggerFactory::getLogger);
+    public Logging(AsyncLogWriter writer, @Value("${logging.aspect.sample-rate:1.0}") double sampleRate) {
+        this.writer = writer;
+        this.sampleRate = sampleRate;
     }
 
     @Pointcut("within(ru.zhadaev..*)")
@@ -42,47 +59,59 @@ public class Logging {
 
     @Around("applicationPackagePointcut() && apiPointcut()")
     public Object logAroundApi(ProceedingJoinPoint joinPoint) throws Throwable {
-        String declaringTypeName = joinPoint.getSignature().getDeclaringTypeName();
-        if (logger(declaringTypeName).isInfoEnabled()) {
-            logger(declaringTypeName).info("Enter: {}() with argument[s] = {}", joinPoint.getSignature().getName(), Arrays.toString(joinPoint.getArgs()));
-        }
-        try {
-            long start = System.currentTimeMillis();
-            Object result = joinPoint.proceed();
-            long elapsedTime = System.currentTimeMillis() - start;
-            logger(declaringTypeName).info("Exit: {}() with result = {}. Execution time : {} ms", joinPoint.getSignature().getName(), result, elapsedTime);
-            return result;
-        } catch (IllegalArgumentException e) {
-            logger(declaringTypeName).error("Illegal argument: {} in {}()", Arrays.toString(joinPoint.getArgs()), joinPoint.getSignature().getName());
-            throw e;
+        Logger logger = logger(joinPoint);
+        if (!logger.isInfoEnabled() || !sampled() || SyntheticTraffic.isSynthetic()) {
+            return joinPoint.proceed();
         }
+        return logAround(joinPoint, logger, Level.INFO);
     }
 
     @Around("applicationPackagePointcut() && blAndDaoPointcut()")
     public Object logAroundOther(ProceedingJoinPoint joinPoint) throws Throwable {
-        String declaringTypeName = joinPoint.getSignature().getDeclaringTypeName();
-        if (logger(declaringTypeName).isDebugEnabled()) {
-            logger(declaringTypeName).debug("Enter: {}() with argument[s] = {}", joinPoint.getSignature().getName(), Arrays.toString(joinPoint.getArgs()));
+        Logger logger = logger(joinPoint);
+        if (!logger.isDebugEnabled() || !sampled() || SyntheticTraffic.isSynthetic()) {
+            return joinPoint.proceed();
         }
+        return logAround(joinPoint, logger, Level.DEBUG);
+    }
+
+    @AfterThrowing(pointcut = "applicationPackagePointcut() && (apiPointcut() || blAndDaoPointcut())", throwing = "e")
+    public void logAfterThrowing(JoinPoint joinPoint, Throwable e) {
+        if (SyntheticTraffic.isSynthetic()) {
+            return;
+        }
+        Logger logger = logger(joinPoint);
+        if (logger.isTraceEnabled()) {
+            writer.submit(logger, Level.ERROR, "Exception in {}(): {}. Cause: {}",
+                    joinPoint.getSignature().getName(), valueOf(e), valueOf(e.getCause()), e);
+        } else if (logger.isDebugEnabled()) {
+            writer.submit(logger, Level.ERROR, "Exception in {}(): {}. Cause: {}",
+                    joinPoint.getSignature().getName(), valueOf(e), valueOf(e.getCause()));
+        }
+    }
+
+    private Object logAround(ProceedingJoinPoint joinPoint, Logger logger, Level level) throws Throwable {
+        String name = joinPoint.getSignature().getName();
+        writer.submit(logger, level, "Enter: {}() with argument[s] = {}", name, LogSummarizer.summarize(joinPoint.getArgs()));
         try {
-            long start = System.currentTimeMillis();
+            long start = System.nanoTime();
             Object result = joinPoint.proceed();
-            long elapsedTime = System.currentTimeMillis() - start;
-            logger(declaringTypeName).debug("Exit: {}() with result = {}. Execution time : {} ms", joinPoint.getSignature().getName(), result, elapsedTime);
+            long elapsedTime = (System.nanoTime() - start) / 1_000_000;
+            writer.submit(logger, level, "Exit: {}() with result = {}. Execution time : {} ms",
+                    name, LogSummarizer.summarize(result), elapsedTime);
             return result;
         } catch (IllegalArgumentException e) {
-            logger(declaringTypeName).error("Illegal argument: {} in {}()", Arrays.toString(joinPoint.getArgs()), joinPoint.getSignature().getName());
+            writer.submit(logger, Level.ERROR, "Illegal argument: {} in {}()", LogSummarizer.summarize(joinPoint.getArgs()), name);
             throw e;
         }
     }
 
-    @AfterThrowing(pointcut = "applicationPackagePointcut() && (apiPointcut() || blAndDaoPointcut())", throwing = "e")
-    public void logAfterThrowing(JoinPoint joinPoint, Throwable e) {
-        String fqName = joinPoint.getSignature().getDeclaringTypeName();
-        if (logger(fqName).isTraceEnabled()) {
-            logger(fqName).error("Exception in {}(): {}. Cause: {}", joinPoint.getSignature().getName(), valueOf(e), valueOf(e.getCause()), e);
-        } else if (logger(fqName).isDebugEnabled()) {
-            logger(fqName).error("Exception in {}(): {}. Cause: {}", joinPoint.getSignature().getName(), valueOf(e), valueOf(e.getCause()));
-        }
+    private boolean sampled() {
+        return sampleRate >= 1.0 || (sampleRate > 0.0 && ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+
+    private static Logger logger(JoinPoint joinPoint) {
+        Object target = joinPoint.getTarget();
+        return LOGGERS.get(target != null ? target.getClass() : Logging.class);
     }
 }
@@ -0,0 +1,181 @@
+package ru.zhadaev.schoolsecurity.aspect;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import ru.zhadaev.schoolsecurity.exception.AlreadyExistsException;
+import ru.zhadaev.schoolsecurity.exception.InvalidCursorException;
+import ru.zhadaev.schoolsecurity.exception.InvalidReferenceException;
+import ru.zhadaev.schoolsecurity.exception.NotFoundException;
+import ru.zhadaev.schoolsecurity.exception.PreconditionFailedException;
+
+import javax.validation.ConstraintViolationException;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Latency histograms, in-flight gauges and error counters for every controller and service method:
+ * {@code method.invocations} (timer, tagged by class, method, outcome and HTTP status),
+ * {@code method.in.flight} and {@code method.errors}. Meters are created once per method and outcome;
+ * the hot path only does map lookups and lock-free updates. Calls made on {@link SyntheticTraffic}
+ * threads are not measured.
+ */
+@Aspect
+@Component
+public class MethodMetrics {
+    private static final String METRIC_NAME = "method";
+    private static final int NO_STATUS = 0;
+
+    private final MeterRegistry registry;
+    private final Map<Method, MethodMeters> meters = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> inFlightGauges = new ConcurrentHashMap<>();
+
+    public MethodMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Pointcut("within(ru.zhadaev..*) && @within(org.springframework.web.bind.annotation.RestController)")
+    public void controllerPointcut() {
+        // Method is empty as this is just a Pointcut, the implementations are in the advices.
+    }
+
+    @Pointcut("within(ru.zhadaev..*) && @within(org.springframework.stereotype.Service)")
+    public void servicePointcut() {
+        // Method is empty as this is just a Pointcut, the implementations are in the advices.
+    }
+
+    @Around("controllerPointcut()")
+    public Object timeController(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(joinPoint, true);
+    }
+
+    @Around("servicePointcut()")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(joinPoint, false);
+    }
+
+    private Object time(ProceedingJoinPoint joinPoint, boolean controller) throws Throwable {
+        if (SyntheticTraffic.isSynthetic()) {
+            return joinPoint.proceed();
+        }
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        MethodMeters methodMeters = meters.computeIfAbsent(method, key -> new MethodMeters(joinPoint, key));
+        methodMeters.inFlight.incrementAndGet();
+        long start = System.nanoTime();
+        try {
+            Object result = joinPoint.proceed();
+            methodMeters.timer(methodMeters.successTimers, "SUCCESS", controller ? methodMeters.status(result) : NO_STATUS)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (Throwable e) {
+            methodMeters.timer(methodMeters.errorTimers, "ERROR", controller ? status(e) : NO_STATUS)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            methodMeters.errors(e).increment();
+            throw e;
+        } finally {
+            methodMeters.inFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * Mirrors the status codes chosen by CustomExceptionHandler and ValidationExceptionHandler.
+     */
+    private static int status(Throwable e) {
+        ResponseStatus responseStatus = AnnotatedElementUtils.findMergedAnnotation(e.getClass(), ResponseStatus.class);
+        if (responseStatus != null) {
+            return responseStatus.code().value();
+        }
+        if (e instanceof NotFoundException) {
+            return HttpStatus.NOT_FOUND.value();
+        }
+        if (e instanceof PreconditionFailedException) {
+            return HttpStatus.PRECONDITION_FAILED.value();
+        }
+        if (e instanceof AlreadyExistsException || e instanceof OptimisticLockingFailureException) {
+            return HttpStatus.CONFLICT.value();
+        }
+        if (e instanceof InvalidCursorException || e instanceof InvalidReferenceException
+                || e instanceof ConstraintViolationException
+                || e instanceof MethodArgumentNotValidException) {
+            return HttpStatus.BAD_REQUEST.value();
+        }
+        if (e instanceof AccessDeniedException) {
+            return HttpStatus.FORBIDDEN.value();
+        }
+        return HttpStatus.INTERNAL_SERVER_ERROR.value();
+    }
+
+    private final class MethodMeters {
+        private final String className;
+        private final String methodName;
+        private final int defaultStatus;
+        private final AtomicInteger inFlight;
+        private final Map<Integer, Timer> successTimers = new ConcurrentHashMap<>();
+        private final Map<Integer, Timer> errorTimers = new ConcurrentHashMap<>();
+        private final Map<Class<?>, Counter> errors = new ConcurrentHashMap<>();
+
+        private MethodMeters(ProceedingJoinPoint joinPoint, Method method) {
+            Object target = joinPoint.getTarget();
+            this.className = (target != null ? target.getClass() : method.getDeclaringClass()).getSimpleName();
+            this.methodName = method.getName();
+            ResponseStatus responseStatus = AnnotatedElementUtils.findMergedAnnotation(method, ResponseStatus.class);
+            this.defaultStatus = (responseStatus != null) ? responseStatus.code().value() : HttpStatus.OK.value();
+            this.inFlight = inFlightGauges.computeIfAbsent(className + '.' + methodName, key -> inFlightGauge());
+        }
+
+        /**
+         * Overloads have the same tags, so they share one gauge: the registry would return the first
+         * overload's gauge for the second one, and the second one's count would be lost.
+         */
+        private AtomicInteger inFlightGauge() {
+            AtomicInteger value = new AtomicInteger();
+            Gauge.builder(METRIC_NAME + ".in.flight", value, AtomicInteger::get)
+                    .tag("class", className)
+                    .tag("method", methodName)
+                    .register(registry);
+            return value;
+        }
+
+        private int status(Object result) {
+            return (result instanceof ResponseEntity) ? ((ResponseEntity<?>) result).getStatusCodeValue() : defaultStatus;
+        }
+
+        private Timer timer(Map<Integer, Timer> timers, String outcome, int status) {
+            return timers.computeIfAbsent(status, key -> Timer.builder(METRIC_NAME + ".invocations")
+                    .tag("class", className)
+                    .tag("method", methodName)
+                    .tag("outcome", outcome)
+                    .tag("status", status == NO_STATUS ? "none" : String.valueOf(status))
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofMillis(1))
+                    .maximumExpectedValue(Duration.ofSeconds(30))
+                    .register(registry));
+        }
+
+        private Counter errors(Throwable e) {
+            return errors.computeIfAbsent(e.getClass(), type -> Counter.builder(METRIC_NAME + ".errors")
+                    .tag("class", className)
+                    .tag("method", methodName)
+                    .tag("exception", type.getSimpleName())
+                    .register(registry));
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package ru.zhadaev.schoolsecurity.aspect;
+
+/**
+ * Threads whose calls are not real traffic, such as the start-up warm-up. {@link MethodMetrics} and
+ * {@link Logging} skip calls made on them, so the {@code method.*} meters and the controller logs only
+ * describe requests from clients. The check is a type test on the current thread and costs nothing on
+ * request threads.
+ */
+public final class SyntheticTraffic {
+
+    private SyntheticTraffic() {
+    }
+
+    /**
+     * Creates a daemon thread whose calls are left out of the method metrics and logs.
+     */
+    public static Thread newThread(Runnable task, String name) {
+        Thread thread = new SyntheticThread(task, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    static boolean isSynthetic() {
+        return Thread.currentThread() instanceof SyntheticThread;
+    }
+
+    private static final class SyntheticThread extends Thread {
+        private SyntheticThread(Runnable task, String name) {
+            super(task, name);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package ru.zhadaev.schoolsecurity.config;
+
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.userdetails.UserDetails;
+
+public class CachingDaoAuthenticationProvider extends DaoAuthenticationProvider {
+    private final VerifiedCredentialCache credentialCache;
+
+    public CachingDaoAuthenticationProvider(VerifiedCredentialCache credentialCache) {
+        this.credentialCache = credentialCache;
+    }
+
+    @Override
+    protected void additionalAuthenticationChecks(UserDetails userDetails,
+                                                  UsernamePasswordAuthenticationToken authentication) {
+        Object credentials = authentication.getCredentials();
+        if (credentials == null || userDetails.getPassword() == null) {
+            super.additionalAuthenticationChecks(userDetails, authentication);
+            return;
+        }
+        String rawPassword = credentials.toString();
+        if (credentialCache.isVerified(userDetails.getUsername(), rawPassword, userDetails.getPassword())) {
+            return;
+        }
+        super.additionalAuthenticationChecks(userDetails, authentication);
+        credentialCache.putVerified(userDetails.getUsername(), rawPassword, userDetails.getPassword());
+    }
+}
@@ -0,0 +1,39 @@
+package ru.zhadaev.schoolsecurity.config;
+
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Masks credentials before request data reaches a log: authentication headers and
+ * {@code password} fields of JSON or form payloads and query strings.
+ */
+final class CredentialRedactor {
+    static final String REDACTED = "[REDACTED]";
+
+    private static final Set<String> SENSITIVE_HEADERS =
+            Set.of("authorization", "proxy-authorization", "cookie", "set-cookie");
+    /**
+     * Also matches a value cut off by the end of the payload, as a captured payload may end inside it.
+     */
+    private static final Pattern JSON_PASSWORD =
+            Pattern.compile("(\"password\"\\s*:\\s*)\"(?:[^\"\\\\]|\\\\.)*(?:\"|\\\\?$)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern FORM_PASSWORD =
+            Pattern.compile("((?:^|&)password=)[^&]*", Pattern.CASE_INSENSITIVE);
+
+    private CredentialRedactor() {
+    }
+
+    static String header(String name, String value) {
+        return SENSITIVE_HEADERS.contains(name.toLowerCase(Locale.ROOT)) ? REDACTED : value;
+    }
+
+    static String payload(String payload) {
+        String redacted = JSON_PASSWORD.matcher(payload).replaceAll("$1\"" + REDACTED + "\"");
+        return FORM_PASSWORD.matcher(redacted).replaceAll("$1" + REDACTED);
+    }
+
+    static String queryString(String queryString) {
+        return (queryString == null) ? null : FORM_PASSWORD.matcher(queryString).replaceAll("$1" + REDACTED);
+    }
+}
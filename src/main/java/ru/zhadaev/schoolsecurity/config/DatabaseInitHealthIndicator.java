@@ -0,0 +1,29 @@
+package ru.zhadaev.schoolsecurity.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Out of service while {@link InitDatabaseConfig} is loading the test data; part of the readiness group.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "test.data", name = "enable", havingValue = "true")
+public class DatabaseInitHealthIndicator implements HealthIndicator {
+    private final InitDatabaseConfig initDatabaseConfig;
+
+    @Override
+    public Health health() {
+        switch (initDatabaseConfig.getState()) {
+            case DONE:
+                return Health.up().build();
+            case FAILED:
+                return Health.down(initDatabaseConfig.getFailure()).build();
+            default:
+                return Health.outOfService().withDetail("state", initDatabaseConfig.getState()).build();
+        }
+    }
+}
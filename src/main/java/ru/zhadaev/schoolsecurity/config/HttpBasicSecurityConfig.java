@@ -7,11 +7,14 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.context.SecurityContextPersistenceFilter;
-import org.springframework.web.filter.CommonsRequestLoggingFilter;
+import ru.zhadaev.schoolsecurity.aspect.AsyncLogWriter;
+
+import java.util.Map;
 
 @Configuration
 @EnableWebSecurity
@@ -21,18 +24,19 @@ public class HttpBasicSecurityConfig {
     @Value("${spring.security.remember-me.tokenValiditySeconds}")
     private Integer tokenValiditySeconds;
 
+    /**
+     * The actuator endpoints other than the probes show the bean graph, startup steps and metrics,
+     * so they are only for accounts that also manage permissions.
+     */
+    @Value("${security.actuator-authority:PERMISSION_UPDATE}")
+    private String actuatorAuthority;
+
     @Bean
-    public CommonsRequestLoggingFilter requestLoggingFilter() {
-        CommonsRequestLoggingFilter filter = new CommonsRequestLoggingFilter();
-        filter.setIncludeClientInfo(true);
-        filter.setIncludeQueryString(true);
-        filter.setIncludePayload(true);
-        filter.setMaxPayloadLength(64000);
-        filter.setIncludeHeaders(false);
-        filter.setIncludeHeaders(true);
-        filter.setAfterMessagePrefix("REQUEST DATA: ");
-        filter.setIncludeHeaders(true);
-        return filter;
+    public RequestLoggingFilter requestLoggingFilter(
+            AsyncLogWriter asyncLogWriter,
+            @Value("${logging.request.sample-rate:1.0}") double sampleRate,
+            @Value("#{${logging.request.max-payload-bytes:{'application/json': 2048}}}") Map<String, Integer> maxPayloadBytes) {
+        return new RequestLoggingFilter(asyncLogWriter, sampleRate, maxPayloadBytes);
     }
 
     @Bean
@@ -53,6 +57,10 @@ public class HttpBasicSecurityConfig {
                 .authorizeHttpRequests()
                 .antMatchers("/api-docs/**", "/swagger-ui/**", "/openapi-custom.yaml")
                 .permitAll()
+                .antMatchers("/actuator/health/liveness", "/actuator/health/readiness")
+                .permitAll()
+                .antMatchers("/actuator/**")
+                .hasAuthority(actuatorAuthority)
                 .anyRequest()
                 .authenticated()
                 .and()
@@ -69,4 +77,14 @@ public class HttpBasicSecurityConfig {
     public PasswordEncoder passwordEncoder() {
         return new BCryptPasswordEncoder();
     }
+
+    @Bean
+    public CachingDaoAuthenticationProvider authenticationProvider(UserDetailsService userDetailsService,
+                                                                   PasswordEncoder passwordEncoder,
+                                                                   VerifiedCredentialCache credentialCache) {
+        CachingDaoAuthenticationProvider provider = new CachingDaoAuthenticationProvider(credentialCache);
+        provider.setUserDetailsService(userDetailsService);
+        provider.setPasswordEncoder(passwordEncoder);
+        return provider;
+    }
 }
@@ -15,7 +15,7 @@ public class HttpRequestHeadersLoggingFilter implements Filter {
         String out = String.format("URL: %s | Remote Addr: %s | HTTP Method: %s | Headers: %s | QueryStringParams: %s ",
                 request.getRequestURL(), request.getRemoteAddr(),
                 request.getMethod(), getRequestHeaders(request),
-                request.getQueryString());
+                CredentialRedactor.queryString(request.getQueryString()));
 
         log.debug(out);
 
@@ -27,7 +27,7 @@ public class HttpRequestHeadersLoggingFilter implements Filter {
         Enumeration<String> headerEnumeration = request.getHeaderNames();
         while (headerEnumeration.hasMoreElements()) {
             String header = headerEnumeration.nextElement();
-            headersMap.put(header, request.getHeader(header));
+            headersMap.put(header, CredentialRedactor.header(header, request.getHeader(header)));
         }
 
         return headersMap;
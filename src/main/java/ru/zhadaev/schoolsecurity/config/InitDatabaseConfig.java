@@ -1,21 +1,47 @@
 package ru.zhadaev.schoolsecurity.config;
 
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
 import org.springframework.context.ApplicationContext;
-import org.springframework.context.annotation.Bean;
 import org.springframework.core.io.ClassPathResource;
-import org.springframework.core.io.Resource;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
 import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
 import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
+import ru.zhadaev.schoolsecurity.dao.generator.JdbcBatchSink;
+import ru.zhadaev.schoolsecurity.dao.generator.SchoolDataGenerator;
+import ru.zhadaev.schoolsecurity.dao.generator.SchoolShape;
+import ru.zhadaev.schoolsecurity.dao.snapshot.SchoolSnapshot;
+
 import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.Map;
 
+/**
+ * Loads the test data on startup when {@code test.data.enable=true}: the schema script first, then the data
+ * script, the {@link SchoolDataGenerator} or a {@link SchoolSnapshot}. The tables of the data script are loaded
+ * in parallel by {@link ParallelDataScript}. With {@code test.data.async=true} the data is loaded in the
+ * background and {@link DatabaseInitHealthIndicator} keeps the readiness group out of service until it is in.
+ * Every phase is recorded as a {@code school.data.*} startup step, served by the {@code startup} endpoint.
+ */
 @Component
 @RequiredArgsConstructor
-public class InitDatabaseConfig {
+@Slf4j
+@ConditionalOnProperty(prefix = "test.data", name = "enable", havingValue = "true")
+public class InitDatabaseConfig implements InitializingBean {
     private final ApplicationContext context;
+    private final DataSource dataSource;
+    private final ApplicationStartup applicationStartup;
 
     @Value("${test.data.filename.schema}")
     private String schemaFile;
@@ -23,13 +49,123 @@ public class InitDatabaseConfig {
     @Value("${test.data.filename.data}")
     private String dataFile;
 
-    @Bean
-    @ConditionalOnProperty(prefix = "test.data", name = "enable", havingValue = "true")
+    @Value("${test.data.source:scripts}")
+    private Source source;
+
+    @Value("${test.data.async:false}")
+    private boolean async;
+
+    @Value("${test.data.parallelism:4}")
+    private int parallelism;
+
+    @Value("${test.data.generator.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${test.data.snapshot.file:}")
+    private String snapshotFile;
+
+    @Value("${test.data.snapshot.batch-size:5000}")
+    private int snapshotBatchSize;
+
+    @Getter
+    private volatile State state = State.PENDING;
+
+    @Getter
+    private volatile RuntimeException failure;
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!async) {
+            initData();
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                initData();
+            } catch (RuntimeException e) {
+                log.error("Loading the test data failed", e);
+            }
+        }, "data-init");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
     public void initData() {
-        Resource initSchema = new ClassPathResource(schemaFile);
-        Resource initData = new ClassPathResource(dataFile);
-        ResourceDatabasePopulator databasePopulator = new ResourceDatabasePopulator(initSchema, initData);
-        DataSource dataSource = context.getBean(DataSource.class);
-        DatabasePopulatorUtils.execute(databasePopulator, dataSource);
+        state = State.LOADING;
+        long started = System.currentTimeMillis();
+        StartupStep step = applicationStartup.start("school.data.init").tag("source", source.name());
+        try {
+            StartupStep schema = applicationStartup.start("school.data.schema").tag("file", schemaFile);
+            DatabasePopulatorUtils.execute(new ResourceDatabasePopulator(new ClassPathResource(schemaFile)), dataSource);
+            schema.end();
+            if (source == Source.GENERATOR) {
+                generateData(dataSource);
+            } else if (source == Source.SNAPSHOT) {
+                restoreSnapshot(dataSource);
+            } else {
+                new ParallelDataScript(dataSource, applicationStartup, parallelism).execute(new ClassPathResource(dataFile));
+            }
+            state = State.DONE;
+            log.info("Test data loaded from {} in {} ms", source, System.currentTimeMillis() - started);
+        } catch (RuntimeException e) {
+            failure = e;
+            state = State.FAILED;
+            step.tag("failure", e.toString());
+            throw e;
+        } finally {
+            step.end();
+        }
+    }
+
+    private void generateData(DataSource dataSource) {
+        SchoolShape shape = Binder.get(context.getEnvironment())
+                .bind("test.data.generator", Bindable.ofInstance(new SchoolShape()))
+                .orElseGet(SchoolShape::new);
+        String encodedPassword = context.getBean(PasswordEncoder.class).encode(shape.getUserPassword());
+        StartupStep step = applicationStartup.start("school.data.generate");
+        long started = System.currentTimeMillis();
+        long rows;
+        try (JdbcBatchSink sink = new JdbcBatchSink(dataSource, batchSize)) {
+            rows = new SchoolDataGenerator(shape, encodedPassword).generate(sink);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            step.end();
+        }
+        log.info("Generated {} rows of test data in {} ms: {}", rows, System.currentTimeMillis() - started, shape);
+    }
+
+    private void restoreSnapshot(DataSource dataSource) {
+        if (snapshotFile.isEmpty()) {
+            throw new IllegalStateException("test.data.snapshot.file must be set when test.data.source=snapshot");
+        }
+        StartupStep step = applicationStartup.start("school.data.restore").tag("file", snapshotFile);
+        long started = System.currentTimeMillis();
+        Map<String, Long> rows;
+        try {
+            rows = new SchoolSnapshot(dataSource, snapshotBatchSize).restore(Paths.get(snapshotFile));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            step.end();
+        }
+        log.info("Restored {} in {} ms: {}", snapshotFile, System.currentTimeMillis() - started, rows);
+    }
+
+    /**
+     * Where the test data comes from: {@code test.data.filename.data}, {@link SchoolDataGenerator}
+     * or a {@link SchoolSnapshot} file.
+     */
+    enum Source {
+        SCRIPTS,
+        GENERATOR,
+        SNAPSHOT
+    }
+
+    public enum State {
+        PENDING,
+        LOADING,
+        DONE,
+        FAILED
     }
 }
@@ -0,0 +1,158 @@
+package ru.zhadaev.schoolsecurity.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.Resource;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.util.FileCopyUtils;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs a data script with the INSERTs of independent tables in parallel. Tables are loaded level by level, a level
+ * only referring to tables of earlier levels, and each table in one batch on its own connection. All other
+ * statements, such as the counter updates at the end of {@code dataTest.sql}, run afterwards in script order.
+ */
+@RequiredArgsConstructor
+class ParallelDataScript {
+    static final List<List<String>> LEVELS = List.of(
+            List.of("school.groups", "school.courses", "school.permissions"),
+            List.of("school.students", "school.users"),
+            List.of("school.students_courses", "school.users_permissions"));
+
+    private static final Pattern INSERT = Pattern.compile("^\\s*insert\\s+into\\s+([\\w.]+)", Pattern.CASE_INSENSITIVE);
+
+    private final DataSource dataSource;
+    private final ApplicationStartup applicationStartup;
+    private final int parallelism;
+
+    void execute(Resource script) {
+        List<String> statements = split(read(script));
+        Map<String, List<String>> inserts = new LinkedHashMap<>();
+        List<String> others = new ArrayList<>();
+        for (String statement : statements) {
+            Matcher insert = INSERT.matcher(statement);
+            String table = insert.find() ? insert.group(1).toLowerCase() : null;
+            if (table != null && LEVELS.stream().anyMatch(level -> level.contains(table))) {
+                inserts.computeIfAbsent(table, t -> new ArrayList<>()).add(statement);
+            } else {
+                others.add(statement);
+            }
+        }
+
+        AtomicInteger threads = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism,
+                runnable -> new Thread(runnable, "data-init-" + threads.incrementAndGet()));
+        try {
+            for (List<String> level : LEVELS) {
+                List<Future<?>> loads = new ArrayList<>();
+                for (String table : level) {
+                    if (inserts.containsKey(table)) {
+                        loads.add(executor.submit(() -> execute(table, inserts.get(table))));
+                    }
+                }
+                for (Future<?> load : loads) {
+                    await(load);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        execute(script.getFilename(), others);
+    }
+
+    private void execute(String name, List<String> statements) {
+        StartupStep step = applicationStartup.start("school.data.load")
+                .tag("table", name)
+                .tag("statements", String.valueOf(statements.size()));
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            connection.setAutoCommit(false);
+            for (String sql : statements) {
+                statement.addBatch(sql);
+            }
+            statement.executeBatch();
+            connection.commit();
+        } catch (SQLException e) {
+            throw new UncategorizedSQLException("Load " + name, null, e);
+        } finally {
+            step.end();
+        }
+    }
+
+    private static void await(Future<?> load) {
+        try {
+            load.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while loading the test data", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Splits the script on semicolons outside string literals and drops {@code --} comments. That covers the data
+     * scripts; Spring's ScriptUtils splits the same way, but only through methods deprecated since 5.3.
+     */
+    static List<String> split(String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder statement = new StringBuilder();
+        boolean inLiteral = false;
+        for (int i = 0; i < script.length(); i++) {
+            char c = script.charAt(i);
+            if (!inLiteral && script.startsWith("--", i)) {
+                int lineEnd = script.indexOf('\n', i);
+                i = (lineEnd < 0) ? script.length() : lineEnd;
+                statement.append('\n');
+            } else if (!inLiteral && c == ';') {
+                addStatement(statements, statement);
+            } else {
+                if (c == '\'') {
+                    inLiteral = !inLiteral;
+                }
+                statement.append(c);
+            }
+        }
+        addStatement(statements, statement);
+        return statements;
+    }
+
+    private static void addStatement(List<String> statements, StringBuilder statement) {
+        String sql = statement.toString().trim();
+        if (!sql.isEmpty()) {
+            statements.add(sql);
+        }
+        statement.setLength(0);
+    }
+
+    private static String read(Resource script) {
+        try {
+            return FileCopyUtils.copyToString(new InputStreamReader(script.getInputStream(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
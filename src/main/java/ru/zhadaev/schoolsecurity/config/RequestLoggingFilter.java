@@ -0,0 +1,180 @@
+package ru.zhadaev.schoolsecurity.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import ru.zhadaev.schoolsecurity.aspect.AsyncLogWriter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Logs a sample of requests at DEBUG: method, URI, status, duration, headers and the beginning of the payload.
+ * Only the first {@code maxPayloadBytes} bytes for the request's content type are copied while the
+ * application reads the body (types without a limit are not captured), credentials are redacted,
+ * and the record is written by {@link AsyncLogWriter} off the request thread.
+ */
+public class RequestLoggingFilter extends OncePerRequestFilter {
+    private static final Logger log = LoggerFactory.getLogger(RequestLoggingFilter.class);
+
+    private final AsyncLogWriter writer;
+    private final double sampleRate;
+    private final Map<String, Integer> maxPayloadBytes;
+
+    public RequestLoggingFilter(AsyncLogWriter writer, double sampleRate, Map<String, Integer> maxPayloadBytes) {
+        this.writer = writer;
+        this.sampleRate = sampleRate;
+        this.maxPayloadBytes = maxPayloadBytes;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!log.isDebugEnabled() || !sampled()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        int limit = payloadLimit(request.getContentType());
+        CapturingRequestWrapper wrapper = (limit > 0) ? new CapturingRequestWrapper(request, limit) : null;
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(wrapper != null ? wrapper : request, response);
+        } finally {
+            long elapsedTime = (System.nanoTime() - start) / 1_000_000;
+            writer.submit(log, Level.DEBUG, "REQUEST DATA: {} {}{} | status={} | {} ms | client={} | headers={} | payload={}",
+                    request.getMethod(), request.getRequestURI(), query(request), response.getStatus(), elapsedTime,
+                    request.getRemoteAddr(), headers(request), (wrapper != null) ? wrapper.payload() : "");
+        }
+    }
+
+    private boolean sampled() {
+        return sampleRate >= 1.0 || (sampleRate > 0.0 && ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+
+    private int payloadLimit(String contentType) {
+        if (contentType == null) {
+            return 0;
+        }
+        try {
+            MediaType mediaType = MediaType.parseMediaType(contentType);
+            return maxPayloadBytes.getOrDefault(mediaType.getType() + "/" + mediaType.getSubtype(), 0);
+        } catch (IllegalArgumentException e) {
+            return 0;
+        }
+    }
+
+    private static String query(HttpServletRequest request) {
+        String queryString = CredentialRedactor.queryString(request.getQueryString());
+        return (queryString == null) ? "" : "?" + queryString;
+    }
+
+    private static String headers(HttpServletRequest request) {
+        StringBuilder headers = new StringBuilder("{");
+        Enumeration<String> names = request.getHeaderNames();
+        for (String name : (names != null) ? Collections.list(names) : Collections.<String>emptyList()) {
+            if (headers.length() > 1) {
+                headers.append(", ");
+            }
+            headers.append(name).append('=').append(CredentialRedactor.header(name, request.getHeader(name)));
+        }
+        return headers.append('}').toString();
+    }
+
+    /**
+     * Copies at most {@code limit} bytes of the body as the application reads it, instead of caching it all.
+     */
+    static class CapturingRequestWrapper extends HttpServletRequestWrapper {
+        private final byte[] captured;
+        private int length;
+        private long total;
+        private ServletInputStream inputStream;
+
+        CapturingRequestWrapper(HttpServletRequest request, int limit) {
+            super(request);
+            this.captured = new byte[limit];
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (inputStream == null) {
+                inputStream = new CapturingInputStream(super.getInputStream());
+            }
+            return inputStream;
+        }
+
+        String payload() {
+            String payload = CredentialRedactor.payload(new String(captured, 0, length, StandardCharsets.UTF_8));
+            return (total > length) ? payload + "...(" + total + " bytes)" : payload;
+        }
+
+        private void capture(byte[] bytes, int offset, int count) {
+            total += count;
+            int copied = Math.min(count, captured.length - length);
+            if (copied > 0) {
+                System.arraycopy(bytes, offset, captured, length, copied);
+                length += copied;
+            }
+        }
+
+        private void capture(int b) {
+            total++;
+            if (length < captured.length) {
+                captured[length++] = (byte) b;
+            }
+        }
+
+        private class CapturingInputStream extends ServletInputStream {
+            private final ServletInputStream delegate;
+
+            private CapturingInputStream(ServletInputStream delegate) {
+                this.delegate = delegate;
+            }
+
+            @Override
+            public int read() throws IOException {
+                int read = delegate.read();
+                if (read >= 0) {
+                    capture(read);
+                }
+                return read;
+            }
+
+            @Override
+            public int read(byte[] bytes, int offset, int count) throws IOException {
+                int read = delegate.read(bytes, offset, count);
+                if (read > 0) {
+                    capture(bytes, offset, read);
+                }
+                return read;
+            }
+
+            @Override
+            public boolean isFinished() {
+                return delegate.isFinished();
+            }
+
+            @Override
+            public boolean isReady() {
+                return delegate.isReady();
+            }
+
+            @Override
+            public void setReadListener(ReadListener readListener) {
+                delegate.setReadListener(readListener);
+            }
+        }
+    }
+}
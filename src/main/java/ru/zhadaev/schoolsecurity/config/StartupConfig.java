@@ -0,0 +1,43 @@
+package ru.zhadaev.schoolsecurity.config;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.zhadaev.schoolsecurity.service.CounterReconciliationJob;
+
+/**
+ * Startup tuning for the {@code fast-start} profile, which turns on lazy initialization.
+ */
+@Configuration
+public class StartupConfig {
+
+    /**
+     * Beans that do their work when they are created, so lazy initialization would switch them off.
+     */
+    @Bean
+    static LazyInitializationExcludeFilter eagerBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(InitDatabaseConfig.class, WarmUp.class,
+                CounterReconciliationJob.class);
+    }
+
+    /**
+     * Stops the application as soon as it is ready: the training run that records the class-data sharing archive.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "startup", name = "exit-when-ready", havingValue = "true")
+    static ExitWhenReady exitWhenReady() {
+        return new ExitWhenReady();
+    }
+
+    static class ExitWhenReady implements ApplicationListener<ApplicationReadyEvent> {
+
+        @Override
+        public void onApplicationEvent(ApplicationReadyEvent event) {
+            System.exit(SpringApplication.exit(event.getApplicationContext()));
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package ru.zhadaev.schoolsecurity.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers (login, raw password, encoded password) triples that already passed BCrypt
+ * verification, so repeated HTTP Basic requests skip the expensive hash.
+ * Entries are keyed by a SHA-256 digest salted with a per-process random value;
+ * neither the raw password nor a reversible form of it is kept in memory.
+ */
+@Component
+public class VerifiedCredentialCache implements MeterBinder {
+    private static final String METRIC_NAME = "security.credential.cache";
+
+    private final Map<String, Long> entries = new ConcurrentHashMap<>();
+    private final byte[] salt = new byte[32];
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private final boolean enabled;
+    private final long ttlNanos;
+    private final int maxSize;
+
+    public VerifiedCredentialCache(@Value("${security.credential-cache.enabled:true}") boolean enabled,
+                                   @Value("${security.credential-cache.ttl:PT5M}") Duration ttl,
+                                   @Value("${security.credential-cache.max-size:10000}") int maxSize) {
+        this.enabled = enabled;
+        this.ttlNanos = ttl.toNanos();
+        this.maxSize = maxSize;
+        new SecureRandom().nextBytes(salt);
+    }
+
+    public boolean isVerified(String login, String rawPassword, String encodedPassword) {
+        if (!enabled) {
+            return false;
+        }
+        String key = key(login, rawPassword, encodedPassword);
+        Long expiresAt = entries.get(key);
+        if (expiresAt != null && expiresAt - System.nanoTime() > 0) {
+            hits.increment();
+            return true;
+        }
+        if (expiresAt != null) {
+            entries.remove(key, expiresAt);
+        }
+        misses.increment();
+        return false;
+    }
+
+    public void putVerified(String login, String rawPassword, String encodedPassword) {
+        if (!enabled) {
+            return;
+        }
+        if (entries.size() >= maxSize) {
+            evictExpiredOrOldest();
+        }
+        entries.put(key(login, rawPassword, encodedPassword), System.nanoTime() + ttlNanos);
+    }
+
+    public void evictAll() {
+        evictions.add(entries.size());
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder(METRIC_NAME + ".requests", hits, LongAdder::sum)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder(METRIC_NAME + ".requests", misses, LongAdder::sum)
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder(METRIC_NAME + ".evictions", evictions, LongAdder::sum)
+                .register(registry);
+        Gauge.builder(METRIC_NAME + ".size", entries, Map::size)
+                .register(registry);
+    }
+
+    private void evictExpiredOrOldest() {
+        long now = System.nanoTime();
+        int before = entries.size();
+        entries.values().removeIf(expiresAt -> expiresAt - now <= 0);
+        if (entries.size() >= maxSize) {
+            entries.entrySet().stream()
+                    .min(Map.Entry.comparingByValue())
+                    .ifPresent(oldest -> entries.remove(oldest.getKey(), oldest.getValue()));
+        }
+        evictions.add(Math.max(0, before - entries.size()));
+    }
+
+    private String key(String login, String rawPassword, String encodedPassword) {
+        MessageDigest digest = sha256();
+        digest.update(salt);
+        update(digest, login);
+        update(digest, rawPassword);
+        update(digest, encodedPassword);
+        return Base64.getEncoder().encodeToString(digest.digest());
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        digest.update((byte) (bytes.length >>> 24));
+        digest.update((byte) (bytes.length >>> 16));
+        digest.update((byte) (bytes.length >>> 8));
+        digest.update((byte) bytes.length);
+        digest.update(bytes);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
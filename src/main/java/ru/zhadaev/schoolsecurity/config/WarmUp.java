@@ -0,0 +1,350 @@
+package ru.zhadaev.schoolsecurity.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.zhadaev.schoolsecurity.api.controllers.CourseController;
+import ru.zhadaev.schoolsecurity.api.controllers.GroupController;
+import ru.zhadaev.schoolsecurity.api.controllers.PermissionController;
+import ru.zhadaev.schoolsecurity.api.controllers.StudentController;
+import ru.zhadaev.schoolsecurity.api.controllers.UserController;
+import ru.zhadaev.schoolsecurity.api.dto.CourseDto;
+import ru.zhadaev.schoolsecurity.api.dto.GroupDto;
+import ru.zhadaev.schoolsecurity.api.dto.PermissionDto;
+import ru.zhadaev.schoolsecurity.api.dto.StudentDto;
+import ru.zhadaev.schoolsecurity.api.dto.UserDto;
+import ru.zhadaev.schoolsecurity.aspect.SyntheticTraffic;
+import ru.zhadaev.schoolsecurity.service.CourseService;
+import ru.zhadaev.schoolsecurity.service.GroupService;
+import ru.zhadaev.schoolsecurity.service.StudentService;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Warms the application up once it has started and before {@link WarmUpHealthIndicator} lets the readiness group
+ * report it ready: fills the connection pool, hashes a password once, then runs rounds of the read endpoints
+ * through the controllers, services, repositories, mappers and Jackson, so the JIT, the Hibernate query plans and
+ * the caches are hot when the first real request comes in; last, sends requests that need no credentials through
+ * the server. Every call runs in a read-only transaction that is rolled back, as a user with read permissions only.
+ * Waits for {@link InitDatabaseConfig} when the test data is loaded in the background.
+ * <p>
+ * The duration and the effect, the first round against the median of the last rounds, are logged, kept as
+ * details of the {@code warmUp} health component and recorded as a {@code school.warm-up} startup step.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(prefix = "startup.warm-up", name = "enable", havingValue = "true")
+public class WarmUp implements ApplicationListener<ApplicationReadyEvent> {
+    private static final Pageable PAGE = PageRequest.of(0, 20);
+    private static final int LIMIT = 20;
+    /**
+     * The warm-up calls pass method security with read permissions only, so nothing they reach can write.
+     */
+    private static final Authentication READER = new UsernamePasswordAuthenticationToken("warm-up", null,
+            AuthorityUtils.createAuthorityList("COURSE_READ", "GROUP_READ", "STUDENT_READ", "USER_READ",
+                    "PERMISSION_READ"));
+
+    private final DataSource dataSource;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+    private final ApplicationStartup applicationStartup;
+    private final ObjectProvider<InitDatabaseConfig> initDatabaseConfig;
+    private final UserDetailsService userDetailsService;
+    private final PasswordEncoder passwordEncoder;
+    private final CourseController courseController;
+    private final GroupController groupController;
+    private final StudentController studentController;
+    private final UserController userController;
+    private final PermissionController permissionController;
+    private final CourseService courseService;
+    private final GroupService groupService;
+    private final StudentService studentService;
+
+    @Value("${startup.warm-up.rounds:200}")
+    private int rounds;
+
+    @Value("${startup.warm-up.threads:4}")
+    private int threads;
+
+    @Value("${startup.warm-up.max-duration:PT30S}")
+    private Duration maxDuration;
+
+    @Getter
+    private volatile State state = State.PENDING;
+
+    @Getter
+    private volatile Map<String, Object> report = Map.of();
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        if (state != State.PENDING) {
+            return;
+        }
+        state = State.RUNNING;
+        int port = (event.getApplicationContext() instanceof WebServerApplicationContext) ?
+                ((WebServerApplicationContext) event.getApplicationContext()).getWebServer().getPort() : -1;
+        SyntheticTraffic.newThread(() -> warmUp(port), "warm-up").start();
+    }
+
+    private void warmUp(int port) {
+        StartupStep step = applicationStartup.start("school.warm-up");
+        try {
+            if (!awaitTestData()) {
+                report = Map.of("skipped", "the test data failed to load");
+                return;
+            }
+            long started = System.nanoTime();
+            int connections = fillPool();
+            passwordEncoder.matches("warm-up", passwordEncoder.encode("warm-up"));
+            long[] roundNanos = runRounds(started + maxDuration.toNanos());
+            int requests = (port > 0) ? sendRequests(port, roundNanos.length) : 0;
+            long millis = (System.nanoTime() - started) / 1_000_000;
+
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("durationMillis", millis);
+            report.put("connections", connections);
+            report.put("rounds", roundNanos.length);
+            report.put("httpRequests", requests);
+            if (roundNanos.length > 0) {
+                double first = roundNanos[0] / 1e6;
+                long[] last = Arrays.copyOfRange(roundNanos, roundNanos.length - Math.max(1, roundNanos.length / 10),
+                        roundNanos.length);
+                Arrays.sort(last);
+                double lastMedian = last[last.length / 2] / 1e6;
+                report.put("firstRoundMillis", Math.round(first * 100) / 100.0);
+                report.put("lastRoundsMedianMillis", Math.round(lastMedian * 100) / 100.0);
+                log.info("Warm-up finished in {} ms: {} connections, {} rounds, first round {} ms, last rounds {} ms",
+                        millis, connections, roundNanos.length, String.format("%.2f", first),
+                        String.format("%.2f", lastMedian));
+            }
+            this.report = report;
+            report.forEach((name, value) -> step.tag(name, String.valueOf(value)));
+        } catch (RuntimeException e) {
+            log.warn("Warm-up failed, reporting ready without it", e);
+            report = Map.of("failure", e.toString());
+            step.tag("failure", e.toString());
+        } finally {
+            state = State.DONE;
+            step.end();
+        }
+    }
+
+    private boolean awaitTestData() {
+        InitDatabaseConfig init = initDatabaseConfig.getIfAvailable();
+        try {
+            while (init != null && (init.getState() == InitDatabaseConfig.State.PENDING
+                    || init.getState() == InitDatabaseConfig.State.LOADING)) {
+                Thread.sleep(50);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the test data", e);
+        }
+        return init == null || init.getState() == InitDatabaseConfig.State.DONE;
+    }
+
+    /**
+     * Holds as many connections at once as the pool keeps idle, so all of them are opened now rather than
+     * when the first requests need them.
+     *
+     * @return the number of connections opened and validated
+     */
+    private int fillPool() {
+        int size = 1;
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                size = Math.max(1, dataSource.unwrap(HikariDataSource.class).getMinimumIdle());
+            }
+            List<Connection> connections = new ArrayList<>(size);
+            try {
+                for (int i = 0; i < size; i++) {
+                    Connection connection = dataSource.getConnection();
+                    connections.add(connection);
+                    connection.isValid(1);
+                }
+            } finally {
+                for (Connection connection : connections) {
+                    connection.close();
+                }
+            }
+        } catch (SQLException e) {
+            throw new UncategorizedSQLException("Fill the connection pool", null, e);
+        }
+        return size;
+    }
+
+    /**
+     * Runs the rounds on several threads, so that the statements are prepared on several pooled connections,
+     * and stops starting new rounds at the deadline.
+     *
+     * @return the duration of each round run, in the order they were started
+     */
+    private long[] runRounds(long deadline) {
+        AtomicInteger next = new AtomicInteger();
+        long[] roundNanos = new long[rounds];
+        AtomicInteger completed = new AtomicInteger();
+        List<Thread> workers = new ArrayList<>();
+        List<RuntimeException> failures = new ArrayList<>();
+        for (int i = 0; i < Math.max(1, threads); i++) {
+            Thread worker = SyntheticTraffic.newThread(() -> {
+                SecurityContextHolder.getContext().setAuthentication(READER);
+                try {
+                    int round;
+                    while (System.nanoTime() < deadline && (round = next.getAndIncrement()) < rounds) {
+                        long started = System.nanoTime();
+                        round();
+                        roundNanos[round] = System.nanoTime() - started;
+                        completed.incrementAndGet();
+                    }
+                } catch (RuntimeException e) {
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                } finally {
+                    SecurityContextHolder.clearContext();
+                }
+            }, "warm-up-" + (i + 1));
+            worker.start();
+            workers.add(worker);
+        }
+        try {
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while warming up", e);
+        }
+        if (!failures.isEmpty()) {
+            throw failures.get(0);
+        }
+        return Arrays.copyOf(roundNanos, completed.get());
+    }
+
+    /**
+     * Sends requests that need no credentials through the server, the security filter chain and the dispatcher
+     * servlet: the liveness probe and an unauthenticated API call, which is turned away.
+     *
+     * @return the number of requests sent
+     */
+    private int sendRequests(int port, int count) {
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+        List<HttpRequest> requests = List.of(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/actuator/health/liveness")).build(),
+                HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/courses")).build());
+        int sent = 0;
+        try {
+            for (int i = 0; i < count; i++) {
+                for (HttpRequest request : requests) {
+                    client.send(request, HttpResponse.BodyHandlers.discarding());
+                    sent++;
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Warm-up request to port {} failed: {}", port, e.toString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while warming up", e);
+        }
+        return sent;
+    }
+
+    private void round() {
+        List<CourseDto> courses = call(() -> courseController.findAllAfter(null, LIMIT).getBody());
+        call(() -> courseService.changeStamp() + courseService.findAll(PAGE).size());
+        if (!courses.isEmpty()) {
+            UUID courseId = courses.get(0).getId();
+            call(() -> courseController.findById(courseId, null));
+            call(() -> studentService.findAll(courseId, PAGE));
+        }
+
+        List<GroupDto> groups = call(() -> groupController.findAllAfter(null, LIMIT).getBody());
+        call(() -> groupService.changeStamp(null) + groupService.findAll(null, PAGE).size());
+        call(() -> groupService.changeStamp(10) + groupService.findAll(10, PAGE).size());
+        if (!groups.isEmpty()) {
+            call(() -> groupController.findById(groups.get(0).getId(), null));
+        }
+
+        List<StudentDto> students = call(() -> studentController.findAllAfter(null, LIMIT).getBody());
+        call(() -> studentService.changeStamp() + studentService.findAll(null, PAGE).size());
+        if (!students.isEmpty()) {
+            call(() -> studentController.findById(students.get(0).getId(), null));
+        }
+
+        List<UserDto> users = call(() -> userController.findAll(PAGE));
+        call(() -> userController.findAllAfter(null, LIMIT));
+        if (!users.isEmpty()) {
+            call(() -> userController.findById(users.get(0).getId(), null));
+            call(() -> userDetailsService.loadUserByUsername(users.get(0).getLogin()).getAuthorities().size());
+        }
+
+        List<PermissionDto> permissions = call(() -> permissionController.findAll(PAGE));
+        if (!permissions.isEmpty()) {
+            call(() -> permissionController.findById(permissions.get(0).getName(), null));
+        }
+    }
+
+    /**
+     * Runs one synthetic call in a read-only transaction that is rolled back and serializes what it returns.
+     */
+    private <T> T call(Supplier<T> call) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        return transaction.execute(status -> {
+            status.setRollbackOnly();
+            T result = call.get();
+            try {
+                objectMapper.writeValueAsBytes((result instanceof ResponseEntity) ?
+                        ((ResponseEntity<?>) result).getBody() : result);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException(e);
+            }
+            return result;
+        });
+    }
+
+    public enum State {
+        PENDING, RUNNING, DONE
+    }
+}
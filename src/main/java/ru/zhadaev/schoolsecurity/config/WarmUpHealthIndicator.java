@@ -0,0 +1,25 @@
+package ru.zhadaev.schoolsecurity.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Out of service until {@link WarmUp} has finished; part of the readiness group.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "startup.warm-up", name = "enable", havingValue = "true")
+public class WarmUpHealthIndicator implements HealthIndicator {
+    private final WarmUp warmUp;
+
+    @Override
+    public Health health() {
+        if (warmUp.getState() == WarmUp.State.DONE) {
+            return Health.up().withDetails(warmUp.getReport()).build();
+        }
+        return Health.outOfService().withDetail("state", warmUp.getState()).build();
+    }
+}
@@ -0,0 +1,26 @@
+package ru.zhadaev.schoolsecurity.dao.entities;
+
+import lombok.Data;
+
+import javax.persistence.*;
+
+/**
+ * A counter per table that is bumped by every committed write to it;
+ * list ETags are derived from it instead of from the rows themselves.
+ */
+@Entity
+@Data
+@Table(schema = "school", name = "change_stamps")
+public class ChangeStamp {
+    public static final String COURSES = "courses";
+    public static final String GROUPS = "groups";
+    public static final String STUDENTS = "students";
+    public static final String PERMISSIONS = "permissions";
+
+    @Id
+    @Column(name = "table_name")
+    private String tableName;
+
+    @Column(name = "stamp")
+    private long stamp;
+}
@@ -1,14 +1,19 @@
 package ru.zhadaev.schoolsecurity.dao.entities;
 
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.GenericGenerator;
 
 import javax.persistence.*;
 import java.util.UUID;
 
 @Entity
+@DynamicUpdate
 @Table(schema = "school", name = "courses")
 @Data
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Course {
     @Id
     @GeneratedValue(generator = "UUID")
@@ -21,4 +26,11 @@ public class Course {
 
     @Column(name = "course_description")
     private String description;
+
+    @Column(name = "enrollment_count", insertable = false, updatable = false)
+    private int enrollmentCount;
+
+    @Version
+    @Column(name = "version")
+    private long version;
 }
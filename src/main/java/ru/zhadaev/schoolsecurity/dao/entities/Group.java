@@ -1,6 +1,9 @@
 package ru.zhadaev.schoolsecurity.dao.entities;
 
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.GenericGenerator;
 
 import javax.persistence.*;
@@ -8,7 +11,9 @@ import java.util.UUID;
 
 @Data
 @Entity
+@DynamicUpdate
 @Table(schema = "school", name = "groups")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Group {
     @Id
     @GeneratedValue(generator = "UUID")
@@ -18,4 +23,11 @@ public class Group {
 
     @Column(name = "group_name")
     private String name;
-}
\ No newline at end of file
+
+    @Column(name = "student_count", insertable = false, updatable = false)
+    private int studentCount;
+
+    @Version
+    @Column(name = "version")
+    private long version;
+}
@@ -1,11 +1,16 @@
 package ru.zhadaev.schoolsecurity.dao.entities;
 
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 
 import javax.persistence.*;
 
 @Entity
+@DynamicUpdate
 @Data
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(schema = "school", name = "permissions")
 public class Permission {
     @Id
@@ -14,4 +19,8 @@ public class Permission {
 
     @Column(name = "permission_description")
     private String description;
+
+    @Version
+    @Column(name = "version")
+    private long version;
 }
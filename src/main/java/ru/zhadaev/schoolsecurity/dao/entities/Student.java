@@ -1,6 +1,7 @@
 package ru.zhadaev.schoolsecurity.dao.entities;
 
 import lombok.Data;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.GenericGenerator;
 
 import javax.persistence.*;
@@ -15,6 +16,7 @@ import java.util.UUID;
         }
 )
 @Entity
+@DynamicUpdate
 @Table(name = "students", schema = "school")
 @Data
 public class Student {
@@ -41,4 +43,8 @@ public class Student {
             inverseJoinColumns = @JoinColumn(name = "course_id")
     )
     private Set<Course> courses;
+
+    @Version
+    @Column(name = "version")
+    private long version;
 }
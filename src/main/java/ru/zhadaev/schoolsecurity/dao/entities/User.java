@@ -1,6 +1,9 @@
 package ru.zhadaev.schoolsecurity.dao.entities;
 
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.GenericGenerator;
 import javax.persistence.*;
 import java.util.Set;
@@ -8,8 +11,11 @@ import java.util.UUID;
 
 @Data
 @Entity
+@DynamicUpdate
 @Table(schema = "school", name = "users")
 public class User {
+    public static final String PERMISSIONS_REGION = "ru.zhadaev.schoolsecurity.dao.entities.User.permissions";
+
     @Id
     @GeneratedValue(generator = "UUID")
     @GenericGenerator(name = "UUID", strategy = "org.hibernate.id.UUIDGenerator")
@@ -23,10 +29,15 @@ public class User {
     private String password;
 
     @ManyToMany(fetch = FetchType.EAGER)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @JoinTable(
             schema = "school", name = "users_permissions",
             joinColumns = @JoinColumn(name = "user_id"),
             inverseJoinColumns = @JoinColumn(name = "permission_name")
     )
     private Set<Permission> permissions;
-}
\ No newline at end of file
+
+    @Version
+    @Column(name = "version")
+    private long version;
+}
@@ -0,0 +1,94 @@
+package ru.zhadaev.schoolsecurity.dao.generator;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Writes one file per table in the text format of PostgreSQL {@code COPY}, plus a {@code load.sql} that
+ * copies them in table order and recounts the counters. Load into a database created by {@code schemaTest.sql}
+ * with {@code psql -f load.sql}, run from the output directory.
+ */
+public class CopyFileSink implements RowSink {
+    public static final String LOAD_SCRIPT = "load.sql";
+
+    private final Path directory;
+    private final Map<SchoolTable, Writer> writers = new EnumMap<>(SchoolTable.class);
+
+    public CopyFileSink(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+    }
+
+    public static String fileName(SchoolTable table) {
+        return table.name().toLowerCase() + ".copy";
+    }
+
+    @Override
+    public void row(SchoolTable table, Object... values) throws IOException {
+        Writer writer = writers.get(table);
+        if (writer == null) {
+            writer = Files.newBufferedWriter(directory.resolve(fileName(table)), StandardCharsets.UTF_8);
+            writers.put(table, writer);
+        }
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write('\t');
+            }
+            write(writer, values[i]);
+        }
+        writer.write('\n');
+    }
+
+    private static void write(Writer writer, Object value) throws IOException {
+        if (value == null) {
+            writer.write("\\N");
+            return;
+        }
+        String text = value.toString();
+        if (text.chars().noneMatch(c -> c == '\\' || c == '\t' || c == '\n' || c == '\r')) {
+            writer.write(text);
+            return;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '\\':
+                    writer.write("\\\\");
+                    break;
+                case '\t':
+                    writer.write("\\t");
+                    break;
+                case '\n':
+                    writer.write("\\n");
+                    break;
+                case '\r':
+                    writer.write("\\r");
+                    break;
+                default:
+                    writer.write(c);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Writer writer : writers.values()) {
+            writer.close();
+        }
+        try (Writer script = Files.newBufferedWriter(directory.resolve(LOAD_SCRIPT), StandardCharsets.UTF_8)) {
+            script.write("begin;\n");
+            for (SchoolTable table : writers.keySet()) {
+                script.write(String.format("\\copy %s (%s) from '%s'\n",
+                        table.getName(), String.join(", ", table.getColumns()), fileName(table)));
+            }
+            for (String sql : SchoolTable.RECOUNT) {
+                script.write(sql + ";\n");
+            }
+            script.write("commit;\n");
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package ru.zhadaev.schoolsecurity.dao.generator;
+
+import org.springframework.jdbc.UncategorizedSQLException;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Inserts rows with one batched prepared statement per table and commits every {@code batchSize} rows,
+ * so memory and transaction size stay flat however large the school is. Batches are flushed in table order,
+ * which keeps students ahead of their enrollments. The counters are recounted on close.
+ */
+public class JdbcBatchSink implements RowSink {
+    private final Connection connection;
+    private final int batchSize;
+    private final Map<SchoolTable, PreparedStatement> statements = new EnumMap<>(SchoolTable.class);
+    private int pending;
+
+    public JdbcBatchSink(DataSource dataSource, int batchSize) {
+        try {
+            this.connection = dataSource.getConnection();
+            connection.setAutoCommit(false);
+        } catch (SQLException e) {
+            throw new UncategorizedSQLException("Open generator connection", null, e);
+        }
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void row(SchoolTable table, Object... values) {
+        try {
+            PreparedStatement statement = statements.get(table);
+            if (statement == null) {
+                statement = connection.prepareStatement(table.insert());
+                statements.put(table, statement);
+            }
+            for (int i = 0; i < values.length; i++) {
+                statement.setObject(i + 1, values[i]);
+            }
+            statement.addBatch();
+            if (++pending >= batchSize) {
+                flush();
+            }
+        } catch (SQLException e) {
+            throw new UncategorizedSQLException("Insert into " + table.getName(), table.insert(), e);
+        }
+    }
+
+    private void flush() throws SQLException {
+        if (pending > 0) {
+            for (PreparedStatement statement : statements.values()) {
+                statement.executeBatch();
+            }
+            connection.commit();
+            pending = 0;
+        }
+    }
+
+    @Override
+    public void close() {
+        try (connection) {
+            flush();
+            try (Statement statement = connection.createStatement()) {
+                for (String sql : SchoolTable.RECOUNT) {
+                    statement.executeUpdate(sql);
+                }
+            }
+            connection.commit();
+            for (PreparedStatement statement : statements.values()) {
+                statement.close();
+            }
+            connection.setAutoCommit(true);
+        } catch (SQLException e) {
+            throw new UncategorizedSQLException("Finish generated data", null, e);
+        }
+    }
+}
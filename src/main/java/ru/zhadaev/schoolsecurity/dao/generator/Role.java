@@ -0,0 +1,39 @@
+package ru.zhadaev.schoolsecurity.dao.generator;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * The permission sets the accounts of {@code dataTest.sql} are given, with their logins and encoded passwords.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum Role {
+    USER("user", "$2a$12$qh9xaN766tGARzNL0xOrAuBRF0ZkPMMkvdtKS.NMVCwxOItQv9MLm",
+            List.of("GROUP_READ", "COURSE_READ", "STUDENT_READ")),
+    TEACHER("teacher", "$2a$12$XWOgJwQlqcjShcivTEGztOoRrE.9WsQBKBUVECj/mW2yBGjv0VgUi",
+            List.of("GROUP_CREATE", "GROUP_READ", "GROUP_UPDATE", "GROUP_DELETE",
+                    "COURSE_CREATE", "COURSE_READ", "COURSE_UPDATE", "COURSE_DELETE",
+                    "STUDENT_READ")),
+    ADMIN("admin", "$2a$12$amzrg/wj.ZdH0NvZcE4PAefVyGVQwQpy6Aql54Po0WyHkT3RcszCS",
+            List.of("GROUP_CREATE", "GROUP_READ", "GROUP_UPDATE", "GROUP_DELETE",
+                    "COURSE_CREATE", "COURSE_READ", "COURSE_UPDATE", "COURSE_DELETE",
+                    "STUDENT_CREATE", "STUDENT_READ", "STUDENT_UPDATE", "STUDENT_DELETE")),
+    MANAGER("manager", "$2a$12$05z7rkfeMzN0rxdjqYCHreNW77NExjHbRkNrKaaw4DgdMGbptnyUm",
+            List.of("GROUP_CREATE", "GROUP_READ", "GROUP_UPDATE", "GROUP_DELETE",
+                    "COURSE_CREATE", "COURSE_READ", "COURSE_UPDATE", "COURSE_DELETE",
+                    "STUDENT_CREATE", "STUDENT_READ", "STUDENT_UPDATE", "STUDENT_DELETE",
+                    "USER_READ", "USER_UPDATE")),
+    SUPER_ADMIN("super_admin", "$2a$12$qbkq9xegl0F018A0tAGavOSDVl2JbE2XZ.EaEAcR9wBkrTOZhnEYi",
+            List.of("GROUP_CREATE", "GROUP_READ", "GROUP_UPDATE", "GROUP_DELETE",
+                    "COURSE_CREATE", "COURSE_READ", "COURSE_UPDATE", "COURSE_DELETE",
+                    "STUDENT_CREATE", "STUDENT_READ", "STUDENT_UPDATE", "STUDENT_DELETE",
+                    "USER_CREATE", "USER_READ", "USER_UPDATE", "USER_DELETE",
+                    "PERMISSION_CREATE", "PERMISSION_READ", "PERMISSION_UPDATE", "PERMISSION_DELETE"));
+
+    private final String login;
+    private final String encodedPassword;
+    private final List<String> permissions;
+}
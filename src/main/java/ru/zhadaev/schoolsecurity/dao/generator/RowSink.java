@@ -0,0 +1,13 @@
+package ru.zhadaev.schoolsecurity.dao.generator;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Receives generated rows, values in the order of {@link SchoolTable#getColumns()}. Rows of one table
+ * may refer to rows of earlier tables that were sent before them; closing writes whatever is still pending.
+ */
+public interface RowSink extends Closeable {
+
+    void row(SchoolTable table, Object... values) throws IOException;
+}
@@ -0,0 +1,202 @@
+package ru.zhadaev.schoolsecurity.dao.generator;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.core.env.SimpleCommandLinePropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Generates a school of the given {@link SchoolShape} and streams it row by row into a {@link RowSink}; only the
+ * group and course ids are held in memory. The same shape, seed included, always generates the same rows.
+ * <p>
+ * All twenty permissions and the five role accounts of {@code dataTest.sql} are always generated, so the
+ * Postman collections can log in; additional users get a role drawn from the role mix and the login
+ * {@code <role>_<n>}.
+ * <p>
+ * {@link #main} writes COPY files for PostgreSQL:
+ * {@code java -cp school-security.jar -Dloader.main=ru.zhadaev.schoolsecurity.dao.generator.SchoolDataGenerator
+ * org.springframework.boot.loader.PropertiesLauncher <directory> --students=1000000 --groups=5000 ...},
+ * options named as the {@code test.data.generator.*} properties.
+ */
+public class SchoolDataGenerator {
+    private static final String[] FIRST_NAMES = {"Amelia", "Ava", "Charlie", "Emily", "George", "Harry", "Isabella",
+            "Jack", "Jacob", "James", "Jessica", "Lily", "Mia", "Oliver", "Olivia", "Oscar", "Ruby", "Sophie",
+            "Thomas", "William"};
+    private static final String[] LAST_NAMES = {"Anderson", "Baker", "Cooper", "Edwards", "Green", "Harris", "Hill",
+            "Jackson", "King", "Lewis", "Martin", "Morgan", "Phillips", "Scott", "Thompson", "Turner", "Walker",
+            "White", "Wood"};
+    private static final String[] SUBJECTS = {"Astronomy", "Biology", "Botany", "Chemistry", "Computer science",
+            "Economics", "History", "Literature", "Math", "Music"};
+    private static final String[] ENDPOINTS = {"groups", "courses", "students", "permissions", "users"};
+    private static final String[] OPERATIONS = {"create", "read", "update", "delete"};
+
+    private final SchoolShape shape;
+    private final String encodedUserPassword;
+    private final SplittableRandom random;
+
+    public SchoolDataGenerator(SchoolShape shape, String encodedUserPassword) {
+        if (shape.getMinCoursesPerStudent() > shape.getMaxCoursesPerStudent()) {
+            throw new IllegalArgumentException(String.format("min-courses-per-student %d is greater than max-courses-per-student %d",
+                    shape.getMinCoursesPerStudent(), shape.getMaxCoursesPerStudent()));
+        }
+        if (shape.getUsers() > 0 && shape.getRoleMix().values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+            throw new IllegalArgumentException("role-mix gives no role a positive weight");
+        }
+        this.shape = shape;
+        this.encodedUserPassword = encodedUserPassword;
+        this.random = new SplittableRandom(shape.getSeed());
+    }
+
+    public static void main(String[] args) throws IOException {
+        ApplicationArguments arguments = new DefaultApplicationArguments(args);
+        if (arguments.getNonOptionArgs().size() != 1) {
+            System.err.println("Usage: SchoolDataGenerator <directory> [--students=200] [--groups=10] ...");
+            System.exit(2);
+        }
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new SimpleCommandLinePropertySource(args));
+        SchoolShape shape = new Binder(ConfigurationPropertySources.get(environment))
+                .bind("", Bindable.ofInstance(new SchoolShape()))
+                .orElseGet(SchoolShape::new);
+        SchoolDataGenerator generator = new SchoolDataGenerator(shape,
+                new BCryptPasswordEncoder().encode(shape.getUserPassword()));
+        long started = System.nanoTime();
+        long rows;
+        try (CopyFileSink sink = new CopyFileSink(Paths.get(arguments.getNonOptionArgs().get(0)))) {
+            rows = generator.generate(sink);
+        }
+        System.out.printf("%d rows written in %d ms%n", rows, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * @return the number of rows sent to the sink
+     */
+    public long generate(RowSink sink) throws IOException {
+        long rows = 0;
+        for (String endpoint : ENDPOINTS) {
+            for (String operation : OPERATIONS) {
+                String entity = endpoint.substring(0, endpoint.length() - 1).toUpperCase();
+                sink.row(SchoolTable.PERMISSIONS, entity + "_" + operation.toUpperCase(),
+                        "Endpoint: " + endpoint + "; operation: " + operation);
+                rows++;
+            }
+        }
+
+        UUID[] groupIds = new UUID[shape.getGroups()];
+        for (int i = 0; i < groupIds.length; i++) {
+            groupIds[i] = uuid();
+            sink.row(SchoolTable.GROUPS, groupIds[i], groupName());
+            rows++;
+        }
+
+        UUID[] courseIds = new UUID[shape.getCourses()];
+        for (int i = 0; i < courseIds.length; i++) {
+            courseIds[i] = uuid();
+            String name = SUBJECTS[i % SUBJECTS.length]
+                    + ((i < SUBJECTS.length) ? "" : " " + (i / SUBJECTS.length + 1));
+            sink.row(SchoolTable.COURSES, courseIds[i], name, "Subject " + name);
+            rows++;
+        }
+
+        double[] popularity = cumulativePopularity(courseIds.length);
+        int[] enrolledBy = new int[courseIds.length];
+        for (int i = 0; i < shape.getStudents(); i++) {
+            UUID studentId = uuid();
+            UUID groupId = (groupIds.length == 0 || random.nextDouble() < shape.getStudentsWithoutGroup()) ?
+                    null : groupIds[random.nextInt(groupIds.length)];
+            sink.row(SchoolTable.STUDENTS, studentId, pick(FIRST_NAMES), pick(LAST_NAMES), groupId);
+            rows++;
+            int courses = Math.min(courseIds.length, shape.getMinCoursesPerStudent()
+                    + random.nextInt(shape.getMaxCoursesPerStudent() - shape.getMinCoursesPerStudent() + 1));
+            for (int j = 0; j < courses; j++) {
+                int course = pickCourse(popularity, enrolledBy, i + 1);
+                enrolledBy[course] = i + 1;
+                sink.row(SchoolTable.STUDENTS_COURSES, studentId, courseIds[course]);
+                rows++;
+            }
+        }
+
+        for (Role role : Role.values()) {
+            rows += user(sink, role.getLogin(), role.getEncodedPassword(), role);
+        }
+        Role[] roles = Role.values();
+        int[] cumulativeMix = new int[roles.length];
+        for (int i = 0; i < roles.length; i++) {
+            cumulativeMix[i] = ((i == 0) ? 0 : cumulativeMix[i - 1]) + shape.getRoleMix().getOrDefault(roles[i], 0);
+        }
+        for (int i = 0; i < shape.getUsers(); i++) {
+            int ticket = random.nextInt(cumulativeMix[roles.length - 1]);
+            int role = 0;
+            while (cumulativeMix[role] <= ticket) {
+                role++;
+            }
+            rows += user(sink, roles[role].getLogin() + "_" + (i + 1), encodedUserPassword, roles[role]);
+        }
+        return rows;
+    }
+
+    private int user(RowSink sink, String login, String encodedPassword, Role role) throws IOException {
+        UUID userId = uuid();
+        sink.row(SchoolTable.USERS, userId, login, encodedPassword);
+        for (String permission : role.getPermissions()) {
+            sink.row(SchoolTable.USERS_PERMISSIONS, userId, permission);
+        }
+        return 1 + role.getPermissions().size();
+    }
+
+    /**
+     * Draws a course by popularity that the student, marked by {@code mark}, is not enrolled on yet. Falls back
+     * to the next free course when the draws keep hitting taken ones, as they do for the few most popular
+     * courses under a steep skew.
+     */
+    private int pickCourse(double[] popularity, int[] enrolledBy, int mark) {
+        double total = popularity[popularity.length - 1];
+        int course = 0;
+        for (int attempt = 0; attempt < 16; attempt++) {
+            int found = Arrays.binarySearch(popularity, random.nextDouble() * total);
+            course = (found >= 0) ? found + 1 : -found - 1;
+            course = Math.min(course, popularity.length - 1);
+            if (enrolledBy[course] != mark) {
+                return course;
+            }
+        }
+        while (enrolledBy[course] == mark) {
+            course = (course + 1) % popularity.length;
+        }
+        return course;
+    }
+
+    private double[] cumulativePopularity(int courses) {
+        double[] cumulative = new double[courses];
+        double sum = 0;
+        for (int i = 0; i < courses; i++) {
+            sum += 1 / Math.pow(i + 1, shape.getCoursePopularitySkew());
+            cumulative[i] = sum;
+        }
+        return cumulative;
+    }
+
+    private String groupName() {
+        return "" + (char) ('A' + random.nextInt(26)) + (char) ('A' + random.nextInt(26)) + '-' + random.nextInt(10, 100);
+    }
+
+    private String pick(String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private UUID uuid() {
+        long mostSigBits = (random.nextLong() & ~0xF000L) | 0x4000L;
+        long leastSigBits = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits);
+    }
+}
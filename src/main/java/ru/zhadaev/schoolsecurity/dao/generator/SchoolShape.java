@@ -0,0 +1,53 @@
+package ru.zhadaev.schoolsecurity.dao.generator;
+
+import lombok.Data;
+import lombok.ToString;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Size and distributions of a generated school, bound from {@code test.data.generator.*}.
+ * The defaults give a school about as large as {@code dataTest.sql}.
+ */
+@Data
+public class SchoolShape {
+    private long seed = 42;
+    private int groups = 10;
+    private int courses = 10;
+    private int students = 200;
+    /**
+     * Share of students, from 0 to 1, who are not in any group.
+     */
+    private double studentsWithoutGroup = 0.0;
+    private int minCoursesPerStudent = 1;
+    private int maxCoursesPerStudent = 3;
+    /**
+     * Zipf exponent of course popularity: 0 enrolls students on all courses equally, 1 makes the n-th course
+     * about n times less popular than the first.
+     */
+    private double coursePopularitySkew = 0.0;
+    /**
+     * Users generated in addition to the five role accounts of {@code dataTest.sql}.
+     */
+    private int users = 0;
+    /**
+     * Relative weights of the roles given to the additional users.
+     */
+    private Map<Role, Integer> roleMix = defaultRoleMix();
+    /**
+     * Password of all additional users; it is encoded once.
+     */
+    @ToString.Exclude
+    private String userPassword = "password";
+
+    private static Map<Role, Integer> defaultRoleMix() {
+        Map<Role, Integer> roleMix = new EnumMap<>(Role.class);
+        roleMix.put(Role.USER, 60);
+        roleMix.put(Role.TEACHER, 25);
+        roleMix.put(Role.MANAGER, 10);
+        roleMix.put(Role.ADMIN, 4);
+        roleMix.put(Role.SUPER_ADMIN, 1);
+        return roleMix;
+    }
+}
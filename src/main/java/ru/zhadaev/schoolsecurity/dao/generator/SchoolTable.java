@@ -0,0 +1,42 @@
+package ru.zhadaev.schoolsecurity.dao.generator;
+
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The tables a generated school is written to, in an order that satisfies their foreign keys.
+ */
+@Getter
+public enum SchoolTable {
+    PERMISSIONS("school.permissions", "permission_name", "permission_description"),
+    GROUPS("school.groups", "group_id", "group_name"),
+    COURSES("school.courses", "course_id", "course_name", "course_description"),
+    STUDENTS("school.students", "student_id", "first_name", "last_name", "group_id"),
+    STUDENTS_COURSES("school.students_courses", "student_id", "course_id"),
+    USERS("school.users", "user_id", "user_login", "user_password"),
+    USERS_PERMISSIONS("school.users_permissions", "user_id", "permission_name");
+
+    /**
+     * Sets the denormalized counters once all rows are in, as {@code dataTest.sql} does.
+     */
+    public static final List<String> RECOUNT = List.of(
+            "update school.groups g set student_count = " +
+                    "(select count(*) from school.students s where s.group_id = g.group_id)",
+            "update school.courses c set enrollment_count = " +
+                    "(select count(*) from school.students_courses sc where sc.course_id = c.course_id)");
+
+    private final String name;
+    private final List<String> columns;
+
+    SchoolTable(String name, String... columns) {
+        this.name = name;
+        this.columns = List.of(columns);
+    }
+
+    String insert() {
+        return "insert into " + name + " (" + String.join(", ", columns) + ") values ("
+                + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")";
+    }
+}
@@ -0,0 +1,24 @@
+package ru.zhadaev.schoolsecurity.dao.repositories;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+import ru.zhadaev.schoolsecurity.dao.entities.ChangeStamp;
+
+import java.util.Collection;
+
+@Repository
+public interface ChangeStampRepository extends CrudRepository<ChangeStamp, String> {
+
+    /**
+     * Stamps only ever grow, so their sum changes whenever any of the tables does. Not cached: with more
+     * than one instance, a local cache would keep the stamp of a node that did not take the write.
+     */
+    @Query("select coalesce(sum(s.stamp), 0) from ChangeStamp s where s.tableName in :tableNames")
+    long sumStamps(Collection<String> tableNames);
+
+    @Modifying
+    @Query("update ChangeStamp s set s.stamp = s.stamp + 1 where s.tableName in :tableNames")
+    void increment(Collection<String> tableNames);
+}
@@ -1,12 +1,86 @@
 package ru.zhadaev.schoolsecurity.dao.repositories;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 import ru.zhadaev.schoolsecurity.dao.entities.Course;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_NATIVE_SPACES;
+
 @Repository
 public interface CourseRepository extends PagingAndSortingRepository<Course, UUID> {
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    List<Course> findAllBy(Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @Query("select c from Course c order by c.name, c.id")
+    List<Course> findAllOrderByName(Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @Query("select c from Course c " +
+            "where c.name >= :name and (c.name > :name or c.id > :id) " +
+            "order by c.name, c.id")
+    List<Course> findAllAfter(String name, UUID id, Pageable pageable);
+
+    /**
+     * Not cached: the version validates ETags, and another instance may have changed the course.
+     */
+    @Query("select c.version from Course c where c.id = :id")
+    Optional<Long> findVersionById(UUID id);
+
+    /**
+     * Native with its own query space, so bumping a counter does not evict cached courses or course queries:
+     * the counter is not part of the API and is only filtered on in the database.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "school.courses.enrollment_count"))
+    @Query(value = "update school.courses set enrollment_count = enrollment_count + :delta where course_id in :ids",
+            nativeQuery = true)
+    void addEnrollmentCount(Collection<UUID> ids, int delta);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "school.courses.enrollment_count"))
+    @Query(value = "update school.courses set enrollment_count = enrollment_count - 1 " +
+            "where course_id in (select course_id from school.students_courses where student_id = :studentId)",
+            nativeQuery = true)
+    void decrementEnrollmentCountsByStudentId(UUID studentId);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "school.students_courses"))
+    @Query(value = "delete from school.students_courses", nativeQuery = true)
+    void removeAllStudents();
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "school.students_courses"))
+    @Query(value = "delete from school.students_courses where course_id = :id", nativeQuery = true)
+    void removeStudents(UUID id);
+
+    @Modifying
+    @Query("delete from Course c")
+    void deleteAllInBatch();
+
+    @Modifying
+    @Query("delete from Course c where c.id = :id")
+    int deleteByIdInBatch(UUID id);
+
+    @Modifying
+    @Query(value = "update school.courses c " +
+            "set enrollment_count = (select count(*) from school.students_courses sc " +
+            "where sc.course_id = c.course_id and sc.student_id is not null) " +
+            "where enrollment_count <> (select count(*) from school.students_courses sc " +
+            "where sc.course_id = c.course_id and sc.student_id is not null)",
+            nativeQuery = true)
+    int reconcileEnrollmentCounts();
 }
 
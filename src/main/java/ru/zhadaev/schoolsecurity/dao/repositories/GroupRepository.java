@@ -1,20 +1,80 @@
 package ru.zhadaev.schoolsecurity.dao.repositories;
 
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 import ru.zhadaev.schoolsecurity.dao.entities.Group;
 
+import javax.persistence.QueryHint;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_NATIVE_SPACES;
+
 @Repository
 public interface GroupRepository extends PagingAndSortingRepository<Group, UUID> {
 
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    List<Group> findAllBy(Pageable pageable);
+
+    @Query("select g from Group g where g.studentCount < :numberStudents")
+    List<Group> findByNumberStudents(int numberStudents, Pageable pageable);
+
+    /**
+     * Runs natively under a query space of its own, so a student joining or leaving a group
+     * leaves the cached groups and group pages in place.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "school.groups.student_count"))
+    @Query(value = "update school.groups set student_count = student_count + :delta where group_id = :id",
+            nativeQuery = true)
+    void addStudentCount(UUID id, int delta);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "school.groups.student_count"))
+    @Query(value = "update school.groups set student_count = student_count - 1 " +
+            "where group_id = (select group_id from school.students where student_id = :studentId)",
+            nativeQuery = true)
+    void decrementStudentCountByStudentId(UUID studentId);
+
+    @Modifying
+    @Query("update Student s set s.group = null where s.group is not null")
+    void removeAllStudents();
+
+    @Modifying
+    @Query("delete from Group g")
+    void deleteAllInBatch();
+
+    @Modifying
+    @Query("delete from Group g where g.id = :id")
+    int deleteByIdInBatch(UUID id);
+
+    @Modifying
+    @Query(value = "update school.groups g " +
+            "set student_count = (select count(*) from school.students s where s.group_id = g.group_id) " +
+            "where student_count <> (select count(*) from school.students s where s.group_id = g.group_id)",
+            nativeQuery = true)
+    int reconcileStudentCounts();
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @Query("select g from Group g order by g.name, g.id")
+    List<Group> findAllOrderByName(Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     @Query("select g from Group g " +
-            "left join Student s on g.id = s.group.id " +
-            "group by g.id having count(s) < :numberStudents")
-    List<Group> findByNumberStudents(long numberStudents, Pageable pageable);
+            "where g.name >= :name and (g.name > :name or g.id > :id) " +
+            "order by g.name, g.id")
+    List<Group> findAllAfter(String name, UUID id, Pageable pageable);
+
+    /**
+     * Not cached: the version validates ETags, and another instance may have changed the group.
+     */
+    @Query("select g.version from Group g where g.id = :id")
+    Optional<Long> findVersionById(UUID id);
 }
 
@@ -1,11 +1,42 @@
 package ru.zhadaev.schoolsecurity.dao.repositories;
 
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 import ru.zhadaev.schoolsecurity.dao.entities.Permission;
+
+import javax.persistence.QueryHint;
 import java.util.Optional;
 
+import static org.hibernate.jpa.QueryHints.HINT_NATIVE_SPACES;
+
 @Repository
 public interface PermissionRepository extends PagingAndSortingRepository<Permission, String> {
     Optional<Permission> findByName(String name);
+
+    /**
+     * Not cached: the version validates ETags, and another instance may have changed the permission.
+     */
+    @Query("select p.version from Permission p where p.name = :name")
+    Optional<Long> findVersionById(String name);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "school.users_permissions"))
+    @Query(value = "delete from school.users_permissions", nativeQuery = true)
+    void removeFromAllUsers();
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "school.users_permissions"))
+    @Query(value = "delete from school.users_permissions where permission_name = :name", nativeQuery = true)
+    void removeFromUsers(String name);
+
+    @Modifying
+    @Query("delete from Permission p")
+    void deleteAllInBatch();
+
+    @Modifying
+    @Query("delete from Permission p where p.name = :name")
+    int deleteByIdInBatch(String name);
 }
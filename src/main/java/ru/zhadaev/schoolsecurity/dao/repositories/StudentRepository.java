@@ -1,24 +1,153 @@
 package ru.zhadaev.schoolsecurity.dao.repositories;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Repository;
+import ru.zhadaev.schoolsecurity.dao.entities.Group;
 import ru.zhadaev.schoolsecurity.dao.entities.Student;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_NATIVE_SPACES;
 
 @Repository
 public interface StudentRepository extends PagingAndSortingRepository<Student, UUID> {
 
+    @Query("select s.id from Student s")
+    List<UUID> findIds(Pageable pageable);
+
+    @Query("select s.id from Student s join s.courses c where c.id = :courseId")
+    List<UUID> findIdsByCourseId(UUID courseId, Pageable pageable);
+
+    @Query("select s.id from Student s where s.group.id = :groupId")
+    List<UUID> findIdsByGroupId(UUID groupId, Pageable pageable);
+
+    @Query("select s.id from Student s join s.courses c where s.group.id = :groupId and c.id = :courseId")
+    List<UUID> findIdsByGroupIdAndCourseId(UUID groupId, UUID courseId, Pageable pageable);
+
+    /**
+     * Students without a last name come last, as PostgreSQL sorts nulls in ascending order and in the
+     * {@code (last_name, student_id)} index.
+     */
+    @Query("select s.id from Student s order by s.lastName asc nulls last, s.id")
+    List<UUID> findIdsOrderByLastName(Pageable pageable);
+
+    /**
+     * Students with a last name only, so the seek stays a range scan of the index; the ones without
+     * follow from {@link #findIdsWithoutLastName} and {@link #findIdsWithoutLastNameAfter}.
+     */
+    @Query("select s.id from Student s " +
+            "where s.lastName >= :lastName and (s.lastName > :lastName or s.id > :id) " +
+            "order by s.lastName, s.id")
+    List<UUID> findIdsAfter(String lastName, UUID id, Pageable pageable);
+
+    @Query("select s.id from Student s where s.lastName is null order by s.id")
+    List<UUID> findIdsWithoutLastName(Pageable pageable);
+
+    @Query("select s.id from Student s where s.lastName is null and s.id > :id order by s.id")
+    List<UUID> findIdsWithoutLastNameAfter(UUID id, Pageable pageable);
+
     @EntityGraph(value = "student-entity-graph")
-    @Query("select s from Student s join Course c on c.id =:courseId where c member of s.courses")
-    List<Student> findByCourseId(UUID courseId, Pageable pageable);
+    @QueryHints(@QueryHint(name = "hibernate.query.passDistinctThrough", value = "false"))
+    @Query("select distinct s from Student s where s.id in :ids")
+    List<Student> findAllByIdIn(Collection<UUID> ids);
 
-    @Override
     @EntityGraph(value = "student-entity-graph")
-    Page<Student> findAll(Pageable pageable);
+    @Query("select s from Student s where s.id = :id")
+    Optional<Student> findWithRelationsById(UUID id);
+
+    @Query("select g.id from Student s join s.group g where s.id = :id")
+    Optional<UUID> findGroupIdById(UUID id);
+
+    @Query("select c.id from Student s join s.courses c where s.id = :id")
+    Set<UUID> findCourseIdsById(UUID id);
+
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.fetchSize", value = "500"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query("select s from Student s left join fetch s.group order by s.id")
+    Stream<Student> streamAll();
+
+    @Query("select s.version from Student s where s.id = :id")
+    Optional<Long> findVersionById(UUID id);
+
+    /**
+     * One row per course of the student, or a single row with a null course; empty when there is no such student.
+     * Every row carries the student's version, so a replace guarded by it fails if the relations changed since.
+     */
+    @Query("select s.version as version, g.id as groupId, c.id as courseId from Student s " +
+            "left join s.group g left join s.courses c where s.id = :id")
+    List<Relation> findRelationsById(UUID id);
+
+    /**
+     * Overwrites the student's own columns in one statement, guarded by the version unless it is {@code null}.
+     * Returns 0 when the student is gone or its version has moved on.
+     */
+    @Modifying
+    @Query("update Student s set s.firstName = :firstName, s.lastName = :lastName, s.group = :group, " +
+            "s.version = s.version + 1 where s.id = :id and (:version is null or s.version = :version)")
+    int replace(UUID id, String firstName, String lastName, @Nullable Group group, @Nullable Long version);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "school.students_courses"))
+    @Query(value = "delete from school.students_courses where student_id = :id and course_id in :courseIds",
+            nativeQuery = true)
+    void removeCourses(UUID id, Collection<UUID> courseIds);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "school.students_courses"))
+    @Query(value = "insert into school.students_courses (student_id, course_id) " +
+            "select cast(:id as uuid), course_id from school.courses where course_id in :courseIds",
+            nativeQuery = true)
+    int addCourses(UUID id, Collection<UUID> courseIds);
+
+    @Query("select g.id as id, count(s) as students from Student s join s.group g where s.id in :ids group by g.id")
+    List<Tally> countByGroupIn(Collection<UUID> ids);
+
+    @Query("select c.id as id, count(s) as students from Student s join s.courses c where s.id in :ids group by c.id")
+    List<Tally> countByCourseIn(Collection<UUID> ids);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "school.students_courses"))
+    @Query(value = "delete from school.students_courses where student_id in :ids", nativeQuery = true)
+    void removeAllCourses(Collection<UUID> ids);
+
+    @Modifying
+    @Query("delete from Student s where s.id in :ids")
+    int deleteAllByIdInBatch(Collection<UUID> ids);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "school.students_courses"))
+    @Query(value = "delete from school.students_courses where student_id = :id", nativeQuery = true)
+    void removeCourses(UUID id);
+
+    @Modifying
+    @Query("delete from Student s where s.id = :id")
+    int deleteByIdInBatch(UUID id);
+
+    interface Relation {
+        long getVersion();
+
+        UUID getGroupId();
+
+        UUID getCourseId();
+    }
+
+    interface Tally {
+        UUID getId();
+
+        long getStudents();
+    }
 }
@@ -1,11 +1,70 @@
 package ru.zhadaev.schoolsecurity.dao.repositories;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.lang.Nullable;
 import ru.zhadaev.schoolsecurity.dao.entities.User;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+import static org.hibernate.jpa.QueryHints.HINT_NATIVE_SPACES;
+
 public interface UserRepository extends PagingAndSortingRepository<User, UUID> {
     Optional<User> findByLogin(String login);
+
+    @Query("select u from User u order by u.login, u.id")
+    List<User> findAllOrderByLogin(Pageable pageable);
+
+    @Query("select u from User u " +
+            "where u.login >= :login and (u.login > :login or u.id > :id) " +
+            "order by u.login, u.id")
+    List<User> findAllAfter(String login, UUID id, Pageable pageable);
+
+    @Query("select u.version from User u where u.id = :id")
+    Optional<Long> findVersionById(UUID id);
+
+    /**
+     * Overwrites the user's own columns in one statement, guarded by the version unless it is {@code null}.
+     * Returns 0 when the user is gone or its version has moved on.
+     */
+    @Modifying
+    @Query("update User u set u.login = :login, u.password = :password, u.version = u.version + 1 " +
+            "where u.id = :id and (:version is null or u.version = :version)")
+    int replace(UUID id, String login, String password, @Nullable Long version);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "school.users_permissions"))
+    @Query(value = "delete from school.users_permissions where user_id = :id", nativeQuery = true)
+    void removePermissions(UUID id);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "school.users_permissions"))
+    @Query(value = "delete from school.users_permissions", nativeQuery = true)
+    void removeAllPermissions();
+
+    @Modifying
+    @Query("delete from User u")
+    void deleteAllInBatch();
+
+    @Modifying
+    @Query("delete from User u where u.id = :id")
+    int deleteByIdInBatch(UUID id);
+
+    /**
+     * Returns the number of rows inserted, which is smaller than the number of names when some name is not
+     * a permission.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "school.users_permissions"))
+    @Query(value = "insert into school.users_permissions (user_id, permission_name) " +
+            "select cast(:id as uuid), permission_name from school.permissions where permission_name in :names",
+            nativeQuery = true)
+    int addPermissions(UUID id, Collection<String> names);
 }
@@ -0,0 +1,81 @@
+package ru.zhadaev.schoolsecurity.dao.snapshot;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+
+/**
+ * Reads what {@link SnapshotOutput} wrote, refilling one direct buffer from the file channel as it drains.
+ */
+class SnapshotInput implements Closeable {
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+
+    SnapshotInput(Path file, int bufferSize) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        buffer.flip();
+    }
+
+    int readByte() throws IOException {
+        ensure(1);
+        return buffer.get();
+    }
+
+    int readInt() throws IOException {
+        ensure(Integer.BYTES);
+        return buffer.getInt();
+    }
+
+    long readLong() throws IOException {
+        ensure(Long.BYTES);
+        return buffer.getLong();
+    }
+
+    UUID readUuid() throws IOException {
+        ensure(2 * Long.BYTES);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+
+    String readString() throws IOException {
+        return new String(readBytes(readInt()), StandardCharsets.UTF_8);
+    }
+
+    byte[] readBytes(int length) throws IOException {
+        byte[] bytes = new byte[length];
+        int read = 0;
+        while (read < length) {
+            if (!buffer.hasRemaining()) {
+                ensure(1);
+            }
+            int chunk = Math.min(buffer.remaining(), length - read);
+            buffer.get(bytes, read, chunk);
+            read += chunk;
+        }
+        return bytes;
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        buffer.compact();
+        while (buffer.position() < bytes) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("The snapshot ends unexpectedly");
+            }
+        }
+        buffer.flip();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,7 @@
+package ru.zhadaev.schoolsecurity.exception;
+
+public class InvalidCursorException extends RuntimeException{
+    public InvalidCursorException(String s) {
+        super(s);
+    }
+}
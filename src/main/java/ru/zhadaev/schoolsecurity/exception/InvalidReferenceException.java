@@ -0,0 +1,7 @@
+package ru.zhadaev.schoolsecurity.exception;
+
+public class InvalidReferenceException extends RuntimeException {
+    public InvalidReferenceException(String s) {
+        super(s);
+    }
+}
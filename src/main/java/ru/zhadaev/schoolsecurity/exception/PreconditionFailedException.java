@@ -0,0 +1,7 @@
+package ru.zhadaev.schoolsecurity.exception;
+
+public class PreconditionFailedException extends RuntimeException{
+    public PreconditionFailedException(String s) {
+        super(s);
+    }
+}
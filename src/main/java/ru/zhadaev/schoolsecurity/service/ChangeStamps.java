@@ -0,0 +1,53 @@
+package ru.zhadaev.schoolsecurity.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.zhadaev.schoolsecurity.dao.repositories.ChangeStampRepository;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Bumps {@code change_stamps} for the tables written by the current transaction. All of them are
+ * updated by one statement right before commit, so the stamp rows are locked only for the commit itself.
+ */
+@Component
+@RequiredArgsConstructor
+class ChangeStamps {
+    private final ChangeStampRepository changeStampRepository;
+
+    void touch(String tableName) {
+        Set<String> touched = touchedTables();
+        if (touched.isEmpty()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    changeStampRepository.increment(touched);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResource(ChangeStamps.this);
+                }
+            });
+        }
+        touched.add(tableName);
+    }
+
+    long current(String... tableNames) {
+        return changeStampRepository.sumStamps(Arrays.asList(tableNames));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<String> touchedTables() {
+        Set<String> touched = (Set<String>) TransactionSynchronizationManager.getResource(this);
+        if (touched == null) {
+            touched = new HashSet<>();
+            TransactionSynchronizationManager.bindResource(this, touched);
+        }
+        return touched;
+    }
+}
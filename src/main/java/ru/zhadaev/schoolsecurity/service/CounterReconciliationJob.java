@@ -0,0 +1,34 @@
+package ru.zhadaev.schoolsecurity.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.zhadaev.schoolsecurity.dao.repositories.CourseRepository;
+import ru.zhadaev.schoolsecurity.dao.repositories.GroupRepository;
+
+/**
+ * Recounts the student and enrollment counters from the source tables and rewrites the rows that drifted,
+ * e.g. after rows were changed by SQL outside the application.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(prefix = "counters.reconciliation", name = "enabled", havingValue = "true")
+public class CounterReconciliationJob {
+    private final GroupRepository groupRepository;
+    private final CourseRepository courseRepository;
+
+    @Scheduled(fixedDelayString = "${counters.reconciliation.delay:PT1H}",
+            initialDelayString = "${counters.reconciliation.delay:PT1H}")
+    @Transactional(rollbackFor = Exception.class)
+    public void reconcile() {
+        int groups = groupRepository.reconcileStudentCounts();
+        int courses = courseRepository.reconcileEnrollmentCounts();
+        if (groups > 0 || courses > 0) {
+            log.warn("Counters reconciled: {} group(s), {} course(s) had drifted", groups, courses);
+        }
+    }
+}
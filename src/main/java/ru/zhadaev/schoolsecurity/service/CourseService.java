@@ -1,18 +1,22 @@
 package ru.zhadaev.schoolsecurity.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.zhadaev.schoolsecurity.api.dto.CourseDto;
 import ru.zhadaev.schoolsecurity.api.mappers.CourseMapper;
+import ru.zhadaev.schoolsecurity.dao.entities.ChangeStamp;
 import ru.zhadaev.schoolsecurity.dao.entities.Course;
 import ru.zhadaev.schoolsecurity.dao.repositories.CourseRepository;
 import ru.zhadaev.schoolsecurity.exception.NotFoundException;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.function.UnaryOperator;
 
 @Service
 @RequiredArgsConstructor
@@ -20,31 +24,60 @@ import java.util.UUID;
 public class CourseService {
     private final CourseRepository courseRepository;
     private final CourseMapper mapper;
+    private final ChangeStamps changeStamps;
+
+    @Value("${paging.max-page-size:500}")
+    private int maxPageSize;
 
     @PreAuthorize("hasAuthority('COURSE_CREATE')")
     public CourseDto save(CourseDto courseDto) {
         Course course = mapper.toEntity(courseDto);
         Course saved = courseRepository.save(course);
+        changeStamps.touch(ChangeStamp.COURSES);
         return mapper.toDto(saved);
     }
 
     @PreAuthorize("hasAuthority('COURSE_UPDATE')")
     public CourseDto updatePut(CourseDto courseDto, UUID id) {
-        if (!this.existsById(id)) {
-            throw new NotFoundException(String.format("Course replace error. Course not found by id = %s", id));
-        }
+        return updatePut(courseDto, id, null);
+    }
+
+    @PreAuthorize("hasAuthority('COURSE_UPDATE')")
+    public CourseDto updatePut(CourseDto courseDto, UUID id, Long expectedVersion) {
+        long version = courseRepository.findById(id)
+                .map(Course::getVersion)
+                .orElseThrow(() -> new NotFoundException(String.format("Course replace error. Course not found by id = %s", id)));
+        Versions.requireMatch(version, expectedVersion, id);
         Course course = mapper.toEntity(courseDto);
         course.setId(id);
+        course.setVersion(version);
         Course replaced = courseRepository.save(course);
+        changeStamps.touch(ChangeStamp.COURSES);
         return mapper.toDto(replaced);
     }
 
     @PreAuthorize("hasAuthority('COURSE_UPDATE')")
     public CourseDto updatePatch(CourseDto courseDto, UUID id) {
-        CourseDto found = this.findById(id);
-        Course course = mapper.toEntity(found);
+        return updatePatch(courseDto, id, null);
+    }
+
+    @PreAuthorize("hasAuthority('COURSE_UPDATE')")
+    public CourseDto updatePatch(CourseDto courseDto, UUID id, Long expectedVersion) {
+        Course course = courseRepository.findById(id)
+                .orElseThrow(() -> new NotFoundException(String.format("Course not found by id = %s", id)));
+        Versions.requireMatch(course.getVersion(), expectedVersion, id);
         mapper.update(courseDto, course);
-        courseRepository.save(course);
+        changeStamps.touch(ChangeStamp.COURSES);
+        return mapper.toDto(course);
+    }
+
+    @PreAuthorize("hasAuthority('COURSE_UPDATE')")
+    public CourseDto mergePatch(UnaryOperator<CourseDto> patch, UUID id, Long expectedVersion) {
+        Course course = courseRepository.findById(id)
+                .orElseThrow(() -> new NotFoundException(String.format("Course not found by id = %s", id)));
+        Versions.requireMatch(course.getVersion(), expectedVersion, id);
+        mapper.merge(patch.apply(mapper.toDto(course)), course);
+        changeStamps.touch(ChangeStamp.COURSES);
         return mapper.toDto(course);
     }
 
@@ -55,12 +88,32 @@ public class CourseService {
         return mapper.toDto(course);
     }
 
+    @PreAuthorize("hasAuthority('COURSE_READ')")
+    public long findVersionById(UUID id) {
+        return courseRepository.findVersionById(id)
+                .orElseThrow(() -> new NotFoundException(String.format("Course not found by id = %s", id)));
+    }
+
+    @PreAuthorize("hasAuthority('COURSE_READ')")
+    public long changeStamp() {
+        return changeStamps.current(ChangeStamp.COURSES);
+    }
+
     @PreAuthorize("hasAuthority('COURSE_READ')")
     public List<CourseDto> findAll(Pageable pageable) {
-        List<Course> courses = courseRepository.findAll(pageable).toList();
+        List<Course> courses = courseRepository.findAllBy(pageable);
         return mapper.toDto(courses);
     }
 
+    @PreAuthorize("hasAuthority('COURSE_READ')")
+    public Slice<CourseDto> findAllAfter(String name, UUID id, int limit) {
+        Pageable firstRows = KeysetSlices.firstRows(limit, maxPageSize);
+        List<Course> courses = (id == null) ?
+                courseRepository.findAllOrderByName(firstRows)
+                : courseRepository.findAllAfter(name, id, firstRows);
+        return KeysetSlices.of(mapper.toDto(courses), firstRows);
+    }
+
     public boolean existsById(UUID id) {
         return courseRepository.existsById(id);
     }
@@ -71,17 +124,18 @@ public class CourseService {
 
     @PreAuthorize("hasAuthority('COURSE_DELETE')")
     public void deleteById(UUID id) {
-        if (existsById(id)) {
-            courseRepository.deleteById(id);
-        } else {
+        courseRepository.removeStudents(id);
+        if (courseRepository.deleteByIdInBatch(id) == 0) {
             throw new NotFoundException(String.format("Course delete error. Course not found by id = %s", id));
         }
+        changeStamps.touch(ChangeStamp.COURSES);
     }
 
     @PreAuthorize("hasAuthority('COURSE_DELETE')")
     public void delete(Course course) {
         if (existsById(course.getId())) {
             courseRepository.delete(course);
+            changeStamps.touch(ChangeStamp.COURSES);
         } else {
             throw new NotFoundException("Course delete error. Course not found");
         }
@@ -89,6 +143,8 @@ public class CourseService {
 
     @PreAuthorize("hasAuthority('COURSE_DELETE')")
     public void deleteAll() {
-        courseRepository.deleteAll();
+        courseRepository.removeAllStudents();
+        courseRepository.deleteAllInBatch();
+        changeStamps.touch(ChangeStamp.COURSES);
     }
 }
@@ -1,18 +1,24 @@
 package ru.zhadaev.schoolsecurity.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.zhadaev.schoolsecurity.api.dto.GroupDto;
 import ru.zhadaev.schoolsecurity.api.mappers.GroupMapper;
+import ru.zhadaev.schoolsecurity.dao.entities.ChangeStamp;
 import ru.zhadaev.schoolsecurity.dao.entities.Group;
 import ru.zhadaev.schoolsecurity.dao.repositories.GroupRepository;
 import ru.zhadaev.schoolsecurity.exception.NotFoundException;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.function.UnaryOperator;
 
 @Service
 @RequiredArgsConstructor
@@ -20,31 +26,60 @@ import java.util.UUID;
 public class GroupService {
     private final GroupRepository groupRepository;
     private final GroupMapper mapper;
+    private final ChangeStamps changeStamps;
+
+    @Value("${paging.max-page-size:500}")
+    private int maxPageSize;
 
     @PreAuthorize("hasAuthority('GROUP_CREATE')")
     public GroupDto save(GroupDto groupDto) {
         Group group = mapper.toEntity(groupDto);
         Group saved = groupRepository.save(group);
+        changeStamps.touch(ChangeStamp.GROUPS);
         return mapper.toDto(saved);
     }
 
     @PreAuthorize("hasAuthority('GROUP_UPDATE')")
     public GroupDto updatePut(GroupDto groupDto, UUID id) {
-        if (!this.existsById(id)) {
-            throw new NotFoundException(String.format("Group replace error. Group not found by id = %s", id));
-        }
+        return updatePut(groupDto, id, null);
+    }
+
+    @PreAuthorize("hasAuthority('GROUP_UPDATE')")
+    public GroupDto updatePut(GroupDto groupDto, UUID id, Long expectedVersion) {
+        long version = groupRepository.findById(id)
+                .map(Group::getVersion)
+                .orElseThrow(() -> new NotFoundException(String.format("Group replace error. Group not found by id = %s", id)));
+        Versions.requireMatch(version, expectedVersion, id);
         Group group = mapper.toEntity(groupDto);
         group.setId(id);
+        group.setVersion(version);
         Group replaced = groupRepository.save(group);
+        changeStamps.touch(ChangeStamp.GROUPS);
         return mapper.toDto(replaced);
     }
 
     @PreAuthorize("hasAuthority('GROUP_UPDATE')")
     public GroupDto updatePatch(GroupDto groupDto, UUID id) {
-        GroupDto found = this.findById(id);
-        Group group = mapper.toEntity(found);
+        return updatePatch(groupDto, id, null);
+    }
+
+    @PreAuthorize("hasAuthority('GROUP_UPDATE')")
+    public GroupDto updatePatch(GroupDto groupDto, UUID id, Long expectedVersion) {
+        Group group = groupRepository.findById(id).
+                orElseThrow(() -> new NotFoundException(String.format("Group not found by id = %s", id)));
+        Versions.requireMatch(group.getVersion(), expectedVersion, id);
         mapper.update(groupDto, group);
-        groupRepository.save(group);
+        changeStamps.touch(ChangeStamp.GROUPS);
+        return mapper.toDto(group);
+    }
+
+    @PreAuthorize("hasAuthority('GROUP_UPDATE')")
+    public GroupDto mergePatch(UnaryOperator<GroupDto> patch, UUID id, Long expectedVersion) {
+        Group group = groupRepository.findById(id).
+                orElseThrow(() -> new NotFoundException(String.format("Group not found by id = %s", id)));
+        Versions.requireMatch(group.getVersion(), expectedVersion, id);
+        mapper.update(patch.apply(mapper.toDto(group)), group);
+        changeStamps.touch(ChangeStamp.GROUPS);
         return mapper.toDto(group);
     }
 
@@ -55,14 +90,47 @@ public class GroupService {
         return mapper.toDto(group);
     }
 
+    @PreAuthorize("hasAuthority('GROUP_READ')")
+    public long findVersionById(UUID id) {
+        return groupRepository.findVersionById(id)
+                .orElseThrow(() -> new NotFoundException(String.format("Group not found by id = %s", id)));
+    }
+
+    /**
+     * Filtering by the number of students reads the student counters, which move with every student write.
+     */
+    @PreAuthorize("hasAuthority('GROUP_READ')")
+    public long changeStamp(Integer numberStudents) {
+        return (numberStudents == null) ?
+                changeStamps.current(ChangeStamp.GROUPS)
+                : changeStamps.current(ChangeStamp.GROUPS, ChangeStamp.STUDENTS);
+    }
+
     @PreAuthorize("hasAuthority('GROUP_READ')")
     public List<GroupDto> findAll(Integer numberStudents, Pageable pageable) {
+        Pageable orderedPageable = orderedById(pageable);
         List<Group> groups = (numberStudents == null) ?
-                groupRepository.findAll(pageable).toList()
-                : groupRepository.findByNumberStudents(numberStudents, pageable);
+                groupRepository.findAllBy(orderedPageable)
+                : groupRepository.findByNumberStudents(numberStudents, orderedPageable);
         return mapper.toDto(groups);
     }
 
+    @PreAuthorize("hasAuthority('GROUP_READ')")
+    public Slice<GroupDto> findAllAfter(String name, UUID id, int limit) {
+        Pageable firstRows = KeysetSlices.firstRows(limit, maxPageSize);
+        List<Group> groups = (id == null) ?
+                groupRepository.findAllOrderByName(firstRows)
+                : groupRepository.findAllAfter(name, id, firstRows);
+        return KeysetSlices.of(mapper.toDto(groups), firstRows);
+    }
+
+    private Pageable orderedById(Pageable pageable) {
+        if (pageable.isUnpaged() || pageable.getSort().getOrderFor("id") != null) {
+            return pageable;
+        }
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), pageable.getSort().and(Sort.by("id")));
+    }
+
     public boolean existsById(UUID id) {
         return groupRepository.existsById(id);
     }
@@ -73,17 +141,17 @@ public class GroupService {
 
     @PreAuthorize("hasAuthority('GROUP_DELETE')")
     public void deleteById(UUID id) {
-        if (existsById(id)) {
-            groupRepository.deleteById(id);
-        } else {
+        if (groupRepository.deleteByIdInBatch(id) == 0) {
             throw new NotFoundException(String.format("Group delete error. Group not found by id = %s", id));
         }
+        changeStamps.touch(ChangeStamp.GROUPS);
     }
 
     @PreAuthorize("hasAuthority('GROUP_DELETE')")
     public void delete(Group group) {
         if (existsById(group.getId())) {
             groupRepository.delete(group);
+            changeStamps.touch(ChangeStamp.GROUPS);
         } else {
             throw new NotFoundException("Group delete error. Group not found");
         }
@@ -91,6 +159,8 @@ public class GroupService {
 
     @PreAuthorize("hasAuthority('GROUP_DELETE')")
     public void deleteAll() {
-        groupRepository.deleteAll();
+        groupRepository.removeAllStudents();
+        groupRepository.deleteAllInBatch();
+        changeStamps.touch(ChangeStamp.GROUPS);
     }
 }
@@ -0,0 +1,29 @@
+package ru.zhadaev.schoolsecurity.service;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+
+import java.util.List;
+
+/**
+ * Keyset pages are read with one extra row: its presence tells that a next page exists
+ * without a count query.
+ */
+final class KeysetSlices {
+
+    private KeysetSlices() {
+    }
+
+    static Pageable firstRows(int limit, int maxPageSize) {
+        return PageRequest.of(0, Math.min(limit, maxPageSize) + 1);
+    }
+
+    static <T> Slice<T> of(List<T> rows, Pageable firstRows) {
+        int size = firstRows.getPageSize() - 1;
+        boolean hasNext = rows.size() > size;
+        List<T> content = hasNext ? rows.subList(0, size) : rows;
+        return new SliceImpl<>(content, PageRequest.of(0, size), hasNext);
+    }
+}
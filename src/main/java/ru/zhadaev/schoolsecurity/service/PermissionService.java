@@ -5,13 +5,19 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import ru.zhadaev.schoolsecurity.api.dto.PermissionDto;
 import ru.zhadaev.schoolsecurity.api.mappers.PermissionMapper;
 import ru.zhadaev.schoolsecurity.dao.repositories.PermissionRepository;
+import ru.zhadaev.schoolsecurity.dao.entities.ChangeStamp;
 import ru.zhadaev.schoolsecurity.dao.entities.Permission;
+import ru.zhadaev.schoolsecurity.dao.entities.User;
 import ru.zhadaev.schoolsecurity.exception.NotFoundException;
 
+import javax.persistence.EntityManagerFactory;
 import java.util.List;
+import java.util.function.UnaryOperator;
 
 @Service
 @RequiredArgsConstructor
@@ -19,20 +25,39 @@ import java.util.List;
 public class PermissionService {
     private final PermissionRepository permissionRepository;
     private final PermissionMapper mapper;
+    private final EntityManagerFactory entityManagerFactory;
+    private final ChangeStamps changeStamps;
 
     @PreAuthorize("hasAuthority('PERMISSION_CREATE')")
     public PermissionDto save(PermissionDto permissionDto) {
         Permission permission = mapper.toEntity(permissionDto);
         Permission saved = permissionRepository.save(permission);
+        changeStamps.touch(ChangeStamp.PERMISSIONS);
         return mapper.toDto(saved);
     }
 
     @PreAuthorize("hasAuthority('PERMISSION_UPDATE')")
     public PermissionDto updatePatch(PermissionDto permissionDto, String id) {
-        PermissionDto found = this.findById(id);
-        Permission permission = mapper.toEntity(found);
+        return updatePatch(permissionDto, id, null);
+    }
+
+    @PreAuthorize("hasAuthority('PERMISSION_UPDATE')")
+    public PermissionDto updatePatch(PermissionDto permissionDto, String id, Long expectedVersion) {
+        Permission permission = permissionRepository.findById(id)
+                .orElseThrow(() -> new NotFoundException(String.format("Permission not found by id = %s", id)));
+        Versions.requireMatch(permission.getVersion(), expectedVersion, id);
         mapper.update(permissionDto, permission);
-        permissionRepository.save(permission);
+        changeStamps.touch(ChangeStamp.PERMISSIONS);
+        return mapper.toDto(permission);
+    }
+
+    @PreAuthorize("hasAuthority('PERMISSION_UPDATE')")
+    public PermissionDto mergePatch(UnaryOperator<PermissionDto> patch, String id, Long expectedVersion) {
+        Permission permission = permissionRepository.findById(id)
+                .orElseThrow(() -> new NotFoundException(String.format("Permission not found by id = %s", id)));
+        Versions.requireMatch(permission.getVersion(), expectedVersion, id);
+        mapper.merge(patch.apply(mapper.toDto(permission)), permission);
+        changeStamps.touch(ChangeStamp.PERMISSIONS);
         return mapper.toDto(permission);
     }
 
@@ -43,6 +68,12 @@ public class PermissionService {
         return mapper.toDto(permission);
     }
 
+    @PreAuthorize("hasAuthority('PERMISSION_READ')")
+    public long findVersionById(String id) {
+        return permissionRepository.findVersionById(id)
+                .orElseThrow(() -> new NotFoundException(String.format("Permission not found by id = %s", id)));
+    }
+
     @PreAuthorize("hasAuthority('PERMISSION_READ')")
     public List<PermissionDto> findAll(Pageable pageable) {
         List<Permission> permissions = permissionRepository.findAll(pageable).toList();
@@ -59,17 +90,20 @@ public class PermissionService {
 
     @PreAuthorize("hasAuthority('PERMISSION_DELETE')")
     public void deleteById(String id) {
-        if (existsById(id)) {
-            permissionRepository.deleteById(id);
-        } else {
+        permissionRepository.removeFromUsers(id);
+        if (permissionRepository.deleteByIdInBatch(id) == 0) {
             throw new NotFoundException(String.format("Permission delete error. Permission not found by id = %s", id));
         }
+        evictUserPermissionsAfterCommit();
+        changeStamps.touch(ChangeStamp.PERMISSIONS);
     }
 
     @PreAuthorize("hasAuthority('PERMISSION_DELETE')")
     public void delete(Permission permission) {
         if (existsById(permission.getName())) {
             permissionRepository.delete(permission);
+            evictUserPermissionsAfterCommit();
+            changeStamps.touch(ChangeStamp.PERMISSIONS);
         } else {
             throw new NotFoundException("Permission delete error. Permission not found");
         }
@@ -77,6 +111,25 @@ public class PermissionService {
 
     @PreAuthorize("hasAuthority('PERMISSION_DELETE')")
     public void deleteAll() {
-        permissionRepository.deleteAll();
+        permissionRepository.removeFromAllUsers();
+        permissionRepository.deleteAllInBatch();
+        evictUserPermissionsAfterCommit();
+        changeStamps.touch(ChangeStamp.PERMISSIONS);
+    }
+
+    /**
+     * The users_permissions rows of a deleted permission are removed by native SQL (or nulled out by the
+     * database) behind Hibernate's back, so the cached User.permissions collections are dropped once the
+     * deletion is committed.
+     */
+    private void evictUserPermissionsAfterCommit() {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                entityManagerFactory.getCache()
+                        .unwrap(org.hibernate.Cache.class)
+                        .evictCollectionData(User.PERMISSIONS_REGION);
+            }
+        });
     }
 }
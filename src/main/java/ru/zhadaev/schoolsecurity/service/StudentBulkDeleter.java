@@ -0,0 +1,92 @@
+package ru.zhadaev.schoolsecurity.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+import org.springframework.stereotype.Service;
+import ru.zhadaev.schoolsecurity.exception.AlreadyExistsException;
+
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Deletes students in chunks of {@code bulk.delete-chunk-size}, each chunk in its own transaction, so the rows
+ * locked and the WAL written per commit stay bounded. The first chunk is deleted on the caller's thread; when
+ * more students match, the remaining chunks are deleted one after another on a background thread.
+ * <p>
+ * The background part is fire-and-forget: there is no status resource, its outcome is only logged, and a
+ * client that needs to know when it ends polls the students it deleted. Only one bulk delete runs at a time,
+ * a second one is rejected until the first has finished. A delete that fails or is stopped by shutdown keeps
+ * the chunks committed so far; sending the same request again deletes the rest.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StudentBulkDeleter implements DisposableBean {
+    private final StudentService studentService;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "student-bulk-deleter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Value("${bulk.delete-chunk-size:1000}")
+    private int chunkSize;
+
+    /**
+     * Returns {@code true} when all matching students are already deleted, {@code false} when the deletion
+     * goes on in the background. Throws {@link AlreadyExistsException} while another bulk delete is running.
+     */
+    @PreAuthorize("hasAuthority('STUDENT_DELETE')")
+    public boolean deleteStudents(UUID groupId, UUID courseId) {
+        if (!running.compareAndSet(false, true)) {
+            throw new AlreadyExistsException("A bulk delete of students is already running");
+        }
+        boolean background = false;
+        try {
+            if (studentService.deleteChunk(groupId, courseId, chunkSize) < chunkSize) {
+                return true;
+            }
+            executor.execute(new DelegatingSecurityContextRunnable(() -> deleteRemaining(groupId, courseId)));
+            background = true;
+            return false;
+        } finally {
+            if (!background) {
+                running.set(false);
+            }
+        }
+    }
+
+    private void deleteRemaining(UUID groupId, UUID courseId) {
+        long deleted = chunkSize;
+        try {
+            int chunk;
+            do {
+                if (Thread.currentThread().isInterrupted()) {
+                    log.warn("Student deletion stopped by shutdown after {} students (groupId = {}, courseId = {})",
+                            deleted, groupId, courseId);
+                    return;
+                }
+                chunk = studentService.deleteChunk(groupId, courseId, chunkSize);
+                deleted += chunk;
+            } while (chunk == chunkSize);
+            log.info("Deleted {} students (groupId = {}, courseId = {})", deleted, groupId, courseId);
+        } catch (RuntimeException e) {
+            log.error("Student deletion stopped after {} students (groupId = {}, courseId = {})",
+                    deleted, groupId, courseId, e);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
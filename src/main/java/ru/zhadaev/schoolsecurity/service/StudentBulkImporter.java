@@ -0,0 +1,118 @@
+package ru.zhadaev.schoolsecurity.service;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Service;
+import ru.zhadaev.schoolsecurity.api.dto.BulkImportResult;
+import ru.zhadaev.schoolsecurity.api.dto.BulkItemError;
+import ru.zhadaev.schoolsecurity.api.dto.StudentDto;
+import ru.zhadaev.schoolsecurity.api.validation.Marker;
+import ru.zhadaev.schoolsecurity.api.validation.Violation;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import javax.validation.groups.Default;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Reads students one by one from an NDJSON or JSON array body and saves them in chunks of
+ * {@code bulk.chunk-size}, each chunk in its own transaction. A chunk that fails for any reason is
+ * retried item by item, so one bad row costs only itself. At most one chunk is held in memory.
+ */
+@Service
+@RequiredArgsConstructor
+public class StudentBulkImporter {
+    private final StudentService studentService;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+
+    @Value("${bulk.chunk-size:500}")
+    private int chunkSize;
+
+    @PreAuthorize("hasAuthority('STUDENT_CREATE')")
+    public BulkImportResult importStudents(InputStream body) throws IOException {
+        BulkImportResult result = new BulkImportResult();
+        List<StudentDto> chunk = new ArrayList<>(chunkSize);
+        List<Integer> indexes = new ArrayList<>(chunkSize);
+        int index = 0;
+        try (MappingIterator<StudentDto> items = objectMapper.readerFor(StudentDto.class).readValues(body)) {
+            while (true) {
+                StudentDto student;
+                try {
+                    if (!items.hasNextValue()) {
+                        break;
+                    }
+                    student = items.nextValue();
+                } catch (JsonParseException e) {
+                    reject(result, index++, "body", e.getOriginalMessage(), null);
+                    break;
+                } catch (JsonMappingException e) {
+                    reject(result, index++, e.getPathReference(), e.getOriginalMessage(), null);
+                    continue;
+                }
+                if (student == null) {
+                    reject(result, index++, "student", "The item must be a student object, not null", null);
+                    continue;
+                }
+                Set<ConstraintViolation<StudentDto>> violations =
+                        validator.validate(student, Default.class, Marker.OnPostPut.class);
+                if (violations.isEmpty()) {
+                    chunk.add(student);
+                    indexes.add(index);
+                } else {
+                    result.getErrors().add(new BulkItemError(index, violations.stream()
+                            .map(violation -> new Violation(
+                                    violation.getMessage(),
+                                    violation.getPropertyPath().toString(),
+                                    violation.getInvalidValue()))
+                            .collect(Collectors.toList())));
+                }
+                index++;
+                if (chunk.size() == chunkSize) {
+                    saveChunk(chunk, indexes, result);
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            saveChunk(chunk, indexes, result);
+        }
+        result.setReceived(index);
+        return result;
+    }
+
+    private void saveChunk(List<StudentDto> chunk, List<Integer> indexes, BulkImportResult result) {
+        try {
+            studentService.saveAll(chunk);
+            result.setSaved(result.getSaved() + chunk.size());
+        } catch (RuntimeException e) {
+            for (int i = 0; i < chunk.size(); i++) {
+                try {
+                    studentService.save(chunk.get(i));
+                    result.setSaved(result.getSaved() + 1);
+                } catch (RuntimeException itemException) {
+                    reject(result, indexes.get(i), "student",
+                            NestedExceptionUtils.getMostSpecificCause(itemException).getMessage(), chunk.get(i));
+                }
+            }
+        }
+        chunk.clear();
+        indexes.clear();
+    }
+
+    private void reject(BulkImportResult result, int index, String propertyPath, String message, Object invalidValue) {
+        result.getErrors().add(new BulkItemError(index,
+                Collections.singletonList(new Violation(message, propertyPath, invalidValue))));
+    }
+}
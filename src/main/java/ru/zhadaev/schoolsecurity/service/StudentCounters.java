@@ -0,0 +1,110 @@
+package ru.zhadaev.schoolsecurity.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.zhadaev.schoolsecurity.dao.entities.Course;
+import ru.zhadaev.schoolsecurity.dao.entities.Student;
+import ru.zhadaev.schoolsecurity.dao.repositories.CourseRepository;
+import ru.zhadaev.schoolsecurity.dao.repositories.GroupRepository;
+import ru.zhadaev.schoolsecurity.dao.repositories.StudentRepository;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps {@code groups.student_count} and {@code courses.enrollment_count} in step with student writes.
+ * Runs inside the caller's transaction; counters that drift anyway are fixed by {@link CounterReconciliationJob}.
+ */
+@Component
+@RequiredArgsConstructor
+class StudentCounters {
+    private final GroupRepository groupRepository;
+    private final CourseRepository courseRepository;
+
+    void added(Collection<Student> students) {
+        Map<UUID, Integer> groupDeltas = new HashMap<>();
+        Map<UUID, Integer> courseDeltas = new HashMap<>();
+        for (Student student : students) {
+            count(groupDeltas, groupId(student), 1);
+            courseIds(student).forEach(courseId -> count(courseDeltas, courseId, 1));
+        }
+        apply(groupDeltas, courseDeltas);
+    }
+
+    /**
+     * Takes the student out of the counters of its current group and courses in the database itself,
+     * without reading them first. Must run before the student's rows are deleted.
+     */
+    void removing(UUID studentId) {
+        groupRepository.decrementStudentCountByStudentId(studentId);
+        courseRepository.decrementEnrollmentCountsByStudentId(studentId);
+    }
+
+    void removed(UUID groupId, Set<UUID> courseIds) {
+        changed(groupId, courseIds, null, Collections.emptySet());
+    }
+
+    void changed(UUID oldGroupId, Set<UUID> oldCourseIds, UUID newGroupId, Set<UUID> newCourseIds) {
+        Map<UUID, Integer> groupDeltas = new HashMap<>();
+        Map<UUID, Integer> courseDeltas = new HashMap<>();
+        if (!Objects.equals(oldGroupId, newGroupId)) {
+            count(groupDeltas, oldGroupId, -1);
+            count(groupDeltas, newGroupId, 1);
+        }
+        oldCourseIds.stream()
+                .filter(courseId -> !newCourseIds.contains(courseId))
+                .forEach(courseId -> count(courseDeltas, courseId, -1));
+        newCourseIds.stream()
+                .filter(courseId -> !oldCourseIds.contains(courseId))
+                .forEach(courseId -> count(courseDeltas, courseId, 1));
+        apply(groupDeltas, courseDeltas);
+    }
+
+    void removed(List<StudentRepository.Tally> groupTallies, List<StudentRepository.Tally> courseTallies) {
+        Map<UUID, Integer> groupDeltas = new HashMap<>();
+        Map<UUID, Integer> courseDeltas = new HashMap<>();
+        groupTallies.forEach(tally -> count(groupDeltas, tally.getId(), (int) -tally.getStudents()));
+        courseTallies.forEach(tally -> count(courseDeltas, tally.getId(), (int) -tally.getStudents()));
+        apply(groupDeltas, courseDeltas);
+    }
+
+    static UUID groupId(Student student) {
+        return (student.getGroup() == null) ? null : student.getGroup().getId();
+    }
+
+    static Set<UUID> courseIds(Student student) {
+        if (student.getCourses() == null) {
+            return Collections.emptySet();
+        }
+        return student.getCourses().stream()
+                .map(Course::getId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+    }
+
+    private void apply(Map<UUID, Integer> groupDeltas, Map<UUID, Integer> courseDeltas) {
+        groupDeltas.forEach((groupId, delta) -> {
+            if (delta != 0) {
+                groupRepository.addStudentCount(groupId, delta);
+            }
+        });
+        Map<Integer, List<UUID>> coursesByDelta = courseDeltas.entrySet().stream()
+                .filter(entry -> entry.getValue() != 0)
+                .collect(Collectors.groupingBy(Map.Entry::getValue,
+                        Collectors.mapping(Map.Entry::getKey, Collectors.toList())));
+        coursesByDelta.forEach((delta, courseIds) -> courseRepository.addEnrollmentCount(courseIds, delta));
+    }
+
+    private static void count(Map<UUID, Integer> deltas, UUID id, int delta) {
+        if (id != null) {
+            deltas.merge(id, delta, Integer::sum);
+        }
+    }
+}
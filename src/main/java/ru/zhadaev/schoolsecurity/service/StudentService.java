@@ -1,50 +1,169 @@
 package ru.zhadaev.schoolsecurity.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.zhadaev.schoolsecurity.api.dto.CourseDto;
 import ru.zhadaev.schoolsecurity.api.dto.StudentDto;
+import ru.zhadaev.schoolsecurity.api.mappers.EntityReferences;
 import ru.zhadaev.schoolsecurity.api.mappers.StudentMapper;
+import ru.zhadaev.schoolsecurity.dao.entities.ChangeStamp;
+import ru.zhadaev.schoolsecurity.dao.entities.Group;
 import ru.zhadaev.schoolsecurity.dao.entities.Student;
 import ru.zhadaev.schoolsecurity.dao.repositories.StudentRepository;
+import ru.zhadaev.schoolsecurity.exception.InvalidReferenceException;
 import ru.zhadaev.schoolsecurity.exception.NotFoundException;
 
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Transactional(rollbackFor = Exception.class)
 @RequiredArgsConstructor
 public class StudentService {
+    private static final int REPLACE_ATTEMPTS = 5;
+
     private final StudentRepository studentRepository;
     private final StudentMapper mapper;
+    private final EntityReferences references;
+    private final EntityManager entityManager;
+    private final StudentCounters counters;
+    private final ChangeStamps changeStamps;
+
+    @Value("${paging.max-page-size:500}")
+    private int maxPageSize;
+
+    @Value("${export.chunk-size:500}")
+    private int exportChunkSize;
 
     @PreAuthorize("hasAuthority('STUDENT_CREATE')")
     public StudentDto save(StudentDto studentDto) {
         Student student = mapper.toEntity(studentDto);
         Student saved = studentRepository.save(student);
+        counters.added(Collections.singletonList(saved));
+        changeStamps.touch(ChangeStamp.STUDENTS);
         return mapper.toDto(saved);
     }
 
+    /**
+     * Inserts the whole list in one transaction; with {@code hibernate.jdbc.batch_size} and
+     * {@code hibernate.order_inserts} the rows go to the database as JDBC batches.
+     */
+    @PreAuthorize("hasAuthority('STUDENT_CREATE')")
+    public void saveAll(List<StudentDto> studentDtos) {
+        List<Student> students = mapper.toEntity(studentDtos);
+        studentRepository.saveAll(students);
+        counters.added(students);
+        changeStamps.touch(ChangeStamp.STUDENTS);
+        entityManager.flush();
+    }
+
     @PreAuthorize("hasAuthority('STUDENT_UPDATE')")
     public StudentDto updatePut(StudentDto studentDto, UUID id) {
-        if (!existsById(id)) {
-            throw new NotFoundException(String.format("Student replace error. Student not found by id = %s", id));
+        return updatePut(studentDto, id, null);
+    }
+
+    /**
+     * Replaces the student with one version-guarded UPDATE and adds or removes only the course rows that differ.
+     * The one read before it fetches the current group and courses, which the counters need, with the version
+     * the UPDATE is guarded by. A concurrent replace that commits in between makes the UPDATE match no row; the
+     * read is then repeated, as the next statement sees that commit. A group or course that does not exist is
+     * rejected before the response is built.
+     */
+    @PreAuthorize("hasAuthority('STUDENT_UPDATE')")
+    public StudentDto updatePut(StudentDto studentDto, UUID id, Long expectedVersion) {
+        Group group = references.group(studentDto.getGroup());
+        List<StudentRepository.Relation> relations;
+        for (int attempt = 1; ; attempt++) {
+            relations = studentRepository.findRelationsById(id);
+            if (relations.isEmpty()) {
+                throw new NotFoundException(String.format("Student replace error. Student not found by id = %s", id));
+            }
+            long version = relations.get(0).getVersion();
+            Versions.requireMatch(version, expectedVersion, id);
+            if (replace(id, studentDto, group, version) == 1) {
+                break;
+            }
+            if (attempt == REPLACE_ATTEMPTS) {
+                throw new OptimisticLockingFailureException(
+                        String.format("The resource with id = %s was modified concurrently", id));
+            }
         }
+        UUID oldGroupId = relations.get(0).getGroupId();
+        Set<UUID> oldCourseIds = relations.stream()
+                .map(StudentRepository.Relation::getCourseId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Set<UUID> newCourseIds = (studentDto.getCourses() == null) ?
+                Collections.emptySet()
+                : studentDto.getCourses().stream().map(CourseDto::getId).collect(Collectors.toSet());
+        replaceCourses(id, oldCourseIds, newCourseIds);
+        UUID newGroupId = (studentDto.getGroup() == null) ? null : studentDto.getGroup().getId();
+        counters.changed(oldGroupId, oldCourseIds, newGroupId, newCourseIds);
+        changeStamps.touch(ChangeStamp.STUDENTS);
         Student student = mapper.toEntity(studentDto);
         student.setId(id);
-        Student replaced = studentRepository.save(student);
-        return mapper.toDto(replaced);
+        student.setGroup(group);
+        student.setCourses(references.courses(studentDto.getCourses()));
+        return mapper.toDto(student);
     }
 
     @PreAuthorize("hasAuthority('STUDENT_UPDATE')")
     public StudentDto updatePatch(StudentDto studentDto, UUID id) {
-        StudentDto found = this.findById(id);
-        Student student = mapper.toEntity(found);
+        return updatePatch(studentDto, id, null);
+    }
+
+    @PreAuthorize("hasAuthority('STUDENT_UPDATE')")
+    public StudentDto updatePatch(StudentDto studentDto, UUID id, Long expectedVersion) {
+        Student student = studentRepository.findWithRelationsById(id)
+                .orElseThrow(() -> new NotFoundException(String.format("Student not found by id = %s", id)));
+        Versions.requireMatch(student.getVersion(), expectedVersion, id);
+        UUID oldGroupId = StudentCounters.groupId(student);
+        Set<UUID> oldCourseIds = StudentCounters.courseIds(student);
         mapper.update(studentDto, student);
-        student = studentRepository.save(student);
+        counters.changed(oldGroupId, oldCourseIds, StudentCounters.groupId(student), StudentCounters.courseIds(student));
+        changeStamps.touch(ChangeStamp.STUDENTS);
+        return mapper.toDto(student);
+    }
+
+    /**
+     * Applies a merge patch: {@code patch} receives the current representation and returns the patched one,
+     * which replaces the student's fields, {@code null}s included. Only the columns that actually changed
+     * are written.
+     */
+    @PreAuthorize("hasAuthority('STUDENT_UPDATE')")
+    public StudentDto mergePatch(UnaryOperator<StudentDto> patch, UUID id, Long expectedVersion) {
+        Student student = studentRepository.findWithRelationsById(id)
+                .orElseThrow(() -> new NotFoundException(String.format("Student not found by id = %s", id)));
+        Versions.requireMatch(student.getVersion(), expectedVersion, id);
+        UUID oldGroupId = StudentCounters.groupId(student);
+        Set<UUID> oldCourseIds = StudentCounters.courseIds(student);
+        StudentDto patched = patch.apply(mapper.toDto(student));
+        mapper.merge(patched, student);
+        references.replaceCourses(student.getCourses(), patched.getCourses());
+        counters.changed(oldGroupId, oldCourseIds, StudentCounters.groupId(student), StudentCounters.courseIds(student));
+        changeStamps.touch(ChangeStamp.STUDENTS);
         return mapper.toDto(student);
     }
 
@@ -55,12 +174,137 @@ public class StudentService {
         return mapper.toDto(student);
     }
 
+    @PreAuthorize("hasAuthority('STUDENT_READ')")
+    public long findVersionById(UUID id) {
+        return studentRepository.findVersionById(id)
+                .orElseThrow(() -> new NotFoundException(String.format("Student not found by id = %s", id)));
+    }
+
+    /**
+     * A student is returned together with its group and courses, so its representation also
+     * changes when one of those does, without the student's own version moving.
+     */
+    @PreAuthorize("hasAuthority('STUDENT_READ')")
+    public long relationsChangeStamp() {
+        return changeStamps.current(ChangeStamp.GROUPS, ChangeStamp.COURSES);
+    }
+
+    @PreAuthorize("hasAuthority('STUDENT_READ')")
+    public long changeStamp() {
+        return changeStamps.current(ChangeStamp.STUDENTS, ChangeStamp.GROUPS, ChangeStamp.COURSES);
+    }
+
     @PreAuthorize("hasAuthority('STUDENT_READ')")
     public List<StudentDto> findAll(UUID courseId, Pageable pageable) {
-        List<Student> students = (courseId == null) ?
-                studentRepository.findAll(pageable).toList()
-                : studentRepository.findByCourseId(courseId, pageable);
-        return mapper.toDto(students);
+        Pageable limited = limit(pageable);
+        List<UUID> ids = (courseId == null) ?
+                studentRepository.findIds(limited)
+                : studentRepository.findIdsByCourseId(courseId, limited);
+        return mapper.toDto(findAllInOrder(ids));
+    }
+
+    /**
+     * Students without a last name come after all the others. A page that runs out of named students is
+     * filled with the first unnamed ones, so every query stays an index seek.
+     */
+    @PreAuthorize("hasAuthority('STUDENT_READ')")
+    public Slice<StudentDto> findAllAfter(String lastName, UUID id, int limit) {
+        Pageable firstRows = KeysetSlices.firstRows(limit, maxPageSize);
+        List<UUID> ids;
+        if (id == null) {
+            ids = studentRepository.findIdsOrderByLastName(firstRows);
+        } else if (lastName == null) {
+            ids = studentRepository.findIdsWithoutLastNameAfter(id, firstRows);
+        } else {
+            ids = studentRepository.findIdsAfter(lastName, id, firstRows);
+            if (ids.size() < firstRows.getPageSize()) {
+                ids = new ArrayList<>(ids);
+                ids.addAll(studentRepository.findIdsWithoutLastName(
+                        PageRequest.of(0, firstRows.getPageSize() - ids.size())));
+            }
+        }
+        Slice<UUID> page = KeysetSlices.of(ids, firstRows);
+        List<StudentDto> students = mapper.toDto(findAllInOrder(page.getContent()));
+        return new SliceImpl<>(students, page.getPageable(), page.hasNext());
+    }
+
+    /**
+     * Reads all students through a database cursor and hands them to {@code chunkConsumer} in chunks
+     * of {@code export.chunk-size}. Each chunk is detached before it is passed on, so the persistence
+     * context never holds more than one chunk; a slow consumer pauses the cursor rather than filling the heap.
+     */
+    @Transactional(readOnly = true)
+    @PreAuthorize("hasAuthority('STUDENT_READ')")
+    public void export(boolean includeRelations, Consumer<List<StudentDto>> chunkConsumer) {
+        try (Stream<Student> students = studentRepository.streamAll()) {
+            List<Student> chunk = new ArrayList<>(exportChunkSize);
+            Iterator<Student> iterator = students.iterator();
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == exportChunkSize || !iterator.hasNext()) {
+                    List<StudentDto> dtos = includeRelations ?
+                            mapper.toDto(findAllInOrder(chunk.stream().map(Student::getId).collect(Collectors.toList())))
+                            : mapper.toDtoWithoutRelations(chunk);
+                    chunk.clear();
+                    entityManager.clear();
+                    chunkConsumer.accept(dtos);
+                }
+            }
+        }
+    }
+
+    private void replaceCourses(UUID id, Set<UUID> oldCourseIds, Set<UUID> newCourseIds) {
+        Set<UUID> removed = oldCourseIds.stream()
+                .filter(courseId -> !newCourseIds.contains(courseId))
+                .collect(Collectors.toSet());
+        Set<UUID> added = newCourseIds.stream()
+                .filter(courseId -> !oldCourseIds.contains(courseId))
+                .collect(Collectors.toSet());
+        if (!removed.isEmpty()) {
+            studentRepository.removeCourses(id, removed);
+        }
+        if (!added.isEmpty() && studentRepository.addCourses(id, added) != added.size()) {
+            throw new InvalidReferenceException("A course reference points to a course that does not exist");
+        }
+    }
+
+    /**
+     * The group is only checked by its foreign key, so an unknown group fails the UPDATE itself.
+     */
+    private int replace(UUID id, StudentDto studentDto, Group group, long version) {
+        try {
+            return studentRepository.replace(id, studentDto.getFirstName(), studentDto.getLastName(), group, version);
+        } catch (DataIntegrityViolationException e) {
+            throw new InvalidReferenceException(String.format(
+                    "The group reference points to a group that does not exist: %s", group.getId()));
+        }
+    }
+
+    /**
+     * Second phase of paging: the page of ids is already cut by SQL, so the group and
+     * courses of only these students are fetched, in one query, keeping the page order.
+     */
+    private List<Student> findAllInOrder(List<UUID> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<UUID, Student> studentsById = studentRepository.findAllByIdIn(ids).stream()
+                .collect(Collectors.toMap(Student::getId, Function.identity()));
+        return ids.stream()
+                .map(studentsById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    private Pageable limit(Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return pageable;
+        }
+        Sort sort = pageable.getSort();
+        if (sort.getOrderFor("id") == null) {
+            sort = sort.and(Sort.by("id"));
+        }
+        return PageRequest.of(pageable.getPageNumber(), Math.min(pageable.getPageSize(), maxPageSize), sort);
     }
 
     public boolean existsById(UUID id) {
@@ -71,26 +315,60 @@ public class StudentService {
         return studentRepository.count();
     }
 
+    /**
+     * Deletes without reading the student first. When no row was deleted the counter updates
+     * before it changed nothing either, and the exception rolls them back anyway.
+     */
     @PreAuthorize("hasAuthority('STUDENT_DELETE')")
     public void deleteById(UUID id) {
-        if (existsById(id)) {
-            studentRepository.deleteById(id);
-        } else {
+        counters.removing(id);
+        studentRepository.removeCourses(id);
+        if (studentRepository.deleteByIdInBatch(id) == 0) {
             throw new NotFoundException(String.format("Student delete error. Student not found by id = %s", id));
         }
+        changeStamps.touch(ChangeStamp.STUDENTS);
     }
 
     @PreAuthorize("hasAuthority('STUDENT_DELETE')")
     public void delete(Student student) {
         if (existsById(student.getId())) {
+            counters.removed(studentRepository.findGroupIdById(student.getId()).orElse(null),
+                    studentRepository.findCourseIdsById(student.getId()));
             studentRepository.delete(student);
+            changeStamps.touch(ChangeStamp.STUDENTS);
         } else {
             throw new NotFoundException("Student delete error. Student not found");
         }
     }
 
+    /**
+     * Deletes up to {@code limit} students of the given group and/or course, or any students when both are
+     * {@code null}: their course rows and then the students themselves, one statement each.
+     * Returns how many were deleted; fewer than {@code limit} means no matching student is left.
+     */
     @PreAuthorize("hasAuthority('STUDENT_DELETE')")
-    public void deleteAll() {
-        studentRepository.deleteAll();
+    public int deleteChunk(UUID groupId, UUID courseId, int limit) {
+        List<UUID> ids = findIds(groupId, courseId, PageRequest.of(0, limit));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        counters.removed(studentRepository.countByGroupIn(ids), studentRepository.countByCourseIn(ids));
+        studentRepository.removeAllCourses(ids);
+        studentRepository.deleteAllByIdInBatch(ids);
+        changeStamps.touch(ChangeStamp.STUDENTS);
+        return ids.size();
+    }
+
+    private List<UUID> findIds(UUID groupId, UUID courseId, Pageable pageable) {
+        if (groupId != null && courseId != null) {
+            return studentRepository.findIdsByGroupIdAndCourseId(groupId, courseId, pageable);
+        }
+        if (groupId != null) {
+            return studentRepository.findIdsByGroupId(groupId, pageable);
+        }
+        if (courseId != null) {
+            return studentRepository.findIdsByCourseId(courseId, pageable);
+        }
+        return studentRepository.findIds(pageable);
     }
 }
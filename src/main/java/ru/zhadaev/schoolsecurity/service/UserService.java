@@ -1,21 +1,32 @@
 package ru.zhadaev.schoolsecurity.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.zhadaev.schoolsecurity.api.dto.PermissionDto;
 import ru.zhadaev.schoolsecurity.api.dto.UserDto;
+import ru.zhadaev.schoolsecurity.api.mappers.EntityReferences;
 import ru.zhadaev.schoolsecurity.api.mappers.UserMapper;
+import ru.zhadaev.schoolsecurity.config.VerifiedCredentialCache;
+import ru.zhadaev.schoolsecurity.dao.entities.ChangeStamp;
 import ru.zhadaev.schoolsecurity.dao.entities.User;
 import ru.zhadaev.schoolsecurity.dao.repositories.UserRepository;
 import ru.zhadaev.schoolsecurity.exception.AlreadyExistsException;
+import ru.zhadaev.schoolsecurity.exception.InvalidReferenceException;
 import ru.zhadaev.schoolsecurity.exception.NotFoundException;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -23,7 +34,13 @@ import java.util.UUID;
 public class UserService {
     private final UserRepository userRepository;
     private final UserMapper mapper;
+    private final EntityReferences references;
     private final PasswordEncoder passwordEncoder;
+    private final VerifiedCredentialCache credentialCache;
+    private final ChangeStamps changeStamps;
+
+    @Value("${paging.max-page-size:500}")
+    private int maxPageSize;
 
     @PreAuthorize("hasAuthority('USER_CREATE')")
     public UserDto save(UserDto userDto) {
@@ -38,25 +55,74 @@ public class UserService {
 
     @PreAuthorize("hasAuthority('USER_UPDATE')")
     public UserDto updatePut(UserDto userDto, UUID id) {
-        if (!this.existsById(id)) {
-            throw new NotFoundException(String.format("User replace error. User not found by id = %s", id));
+        return updatePut(userDto, id, null);
+    }
+
+    /**
+     * Replaces the user with one version-guarded UPDATE, without loading it; the version is read first, so a
+     * missing user or a stale {@code If-Match} is answered without paying for the password hash. The permission
+     * rows are rewritten, and a name that is not a permission is rejected before the response is built.
+     */
+    @PreAuthorize("hasAuthority('USER_UPDATE')")
+    public UserDto updatePut(UserDto userDto, UUID id, Long expectedVersion) {
+        long version = userRepository.findVersionById(id)
+                .orElseThrow(() -> new NotFoundException(String.format("User replace error. User not found by id = %s", id)));
+        Versions.requireMatch(version, expectedVersion, id);
+        String encodedPassword = passwordEncoder.encode(userDto.getPassword());
+        if (userRepository.replace(id, userDto.getLogin(), encodedPassword, expectedVersion) == 0) {
+            throw Versions.notReplaced(userRepository.findVersionById(id), expectedVersion, id,
+                    () -> new NotFoundException(String.format("User replace error. User not found by id = %s", id)));
         }
+        Set<String> names = userDto.getPermissions().stream()
+                .map(PermissionDto::getName)
+                .collect(Collectors.toSet());
+        userRepository.removePermissions(id);
+        if (!names.isEmpty() && userRepository.addPermissions(id, names) != names.size()) {
+            throw new InvalidReferenceException("A permission reference names a permission that does not exist");
+        }
+        credentialCache.evictAll();
         User user = mapper.toEntity(userDto);
         user.setId(id);
-        user.setPassword(passwordEncoder.encode(userDto.getPassword()));
-        User replaced = userRepository.save(user);
-        return mapper.toDto(replaced);
+        user.setPassword(encodedPassword);
+        user.setPermissions(references.permissions(userDto.getPermissions()));
+        return mapper.toDto(user);
     }
 
     @PreAuthorize("hasAuthority('USER_UPDATE')")
     public UserDto updatePatch(UserDto userDto, UUID id) {
-        UserDto found = this.findById(id);
-        User user = mapper.toEntity(found);
+        return updatePatch(userDto, id, null);
+    }
+
+    @PreAuthorize("hasAuthority('USER_UPDATE')")
+    public UserDto updatePatch(UserDto userDto, UUID id, Long expectedVersion) {
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new NotFoundException(String.format("User not found by id = %s", id)));
+        Versions.requireMatch(user.getVersion(), expectedVersion, id);
         mapper.update(userDto, user);
         if (userDto.getPassword() != null) {
             user.setPassword(passwordEncoder.encode(userDto.getPassword()));
         }
-        user = userRepository.save(user);
+        credentialCache.evictAll();
+        return mapper.toDto(user);
+    }
+
+    /**
+     * The current representation handed to {@code patch} carries the encoded password,
+     * so a patched password that differs from it is a new raw one.
+     */
+    @PreAuthorize("hasAuthority('USER_UPDATE')")
+    public UserDto mergePatch(UnaryOperator<UserDto> patch, UUID id, Long expectedVersion) {
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new NotFoundException(String.format("User not found by id = %s", id)));
+        Versions.requireMatch(user.getVersion(), expectedVersion, id);
+        String encodedPassword = user.getPassword();
+        UserDto patched = patch.apply(mapper.toDto(user));
+        mapper.merge(patched, user);
+        references.replacePermissions(user.getPermissions(), patched.getPermissions());
+        if (!Objects.equals(patched.getPassword(), encodedPassword)) {
+            user.setPassword(passwordEncoder.encode(patched.getPassword()));
+        }
+        credentialCache.evictAll();
         return mapper.toDto(user);
     }
 
@@ -67,12 +133,35 @@ public class UserService {
         return mapper.toDto(user);
     }
 
+    @PreAuthorize("hasAuthority('USER_READ')")
+    public long findVersionById(UUID id) {
+        return userRepository.findVersionById(id)
+                .orElseThrow(() -> new NotFoundException(String.format("User not found by id = %s", id)));
+    }
+
+    /**
+     * A user is returned together with its permissions, whose descriptions change without the user's version moving.
+     */
+    @PreAuthorize("hasAuthority('USER_READ')")
+    public long relationsChangeStamp() {
+        return changeStamps.current(ChangeStamp.PERMISSIONS);
+    }
+
     @PreAuthorize("hasAuthority('USER_READ')")
     public List<UserDto> findAll(Pageable pageable) {
         List<User> users = userRepository.findAll(pageable).toList();
         return mapper.toDto(users);
     }
 
+    @PreAuthorize("hasAuthority('USER_READ')")
+    public Slice<UserDto> findAllAfter(String login, UUID id, int limit) {
+        Pageable firstRows = KeysetSlices.firstRows(limit, maxPageSize);
+        List<User> users = (id == null) ?
+                userRepository.findAllOrderByLogin(firstRows)
+                : userRepository.findAllAfter(login, id, firstRows);
+        return KeysetSlices.of(mapper.toDto(users), firstRows);
+    }
+
     public boolean existsById(UUID id) {
         return userRepository.existsById(id);
     }
@@ -83,17 +172,18 @@ public class UserService {
 
     @PreAuthorize("hasAuthority('USER_DELETE')")
     public void deleteById(UUID id) {
-        if (existsById(id)) {
-            userRepository.deleteById(id);
-        } else {
+        userRepository.removePermissions(id);
+        if (userRepository.deleteByIdInBatch(id) == 0) {
             throw new NotFoundException(String.format("User delete error. User not found by id = %s", id));
         }
+        credentialCache.evictAll();
     }
 
     @PreAuthorize("hasAuthority('USER_DELETE')")
     public void delete(User user) {
         if (existsById(user.getId())) {
             userRepository.delete(user);
+            credentialCache.evictAll();
         } else {
             throw new NotFoundException("User delete error. User not found");
         }
@@ -101,7 +191,9 @@ public class UserService {
 
     @PreAuthorize("hasAuthority('USER_DELETE')")
     public void deleteAll() {
-        userRepository.deleteAll();
+        userRepository.removeAllPermissions();
+        userRepository.deleteAllInBatch();
+        credentialCache.evictAll();
     }
 
     private boolean findByLogin(String login) {
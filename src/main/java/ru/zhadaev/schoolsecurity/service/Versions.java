@@ -0,0 +1,35 @@
+package ru.zhadaev.schoolsecurity.service;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+import ru.zhadaev.schoolsecurity.exception.NotFoundException;
+import ru.zhadaev.schoolsecurity.exception.PreconditionFailedException;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Checks the version a client sent in {@code If-Match}; {@code null} means the request was unconditional.
+ */
+final class Versions {
+
+    private Versions() {
+    }
+
+    static void requireMatch(long current, Long expected, Object id) {
+        if (expected != null && expected != current) {
+            throw new PreconditionFailedException(String.format(
+                    "The resource with id = %s has been modified: expected version %d, current version %d",
+                    id, expected, current));
+        }
+    }
+
+    /**
+     * Explains a version-guarded UPDATE that matched no row: the row is gone, its version differs from
+     * the expected one, or it moved on between the check and the write.
+     */
+    static RuntimeException notReplaced(Optional<Long> current, Long expected, Object id,
+                                        Supplier<NotFoundException> notFound) {
+        requireMatch(current.orElseThrow(notFound), expected, id);
+        return new OptimisticLockingFailureException(String.format("The resource with id = %s was modified concurrently", id));
+    }
+}
@@ -711,4 +711,11 @@ INSERT INTO school.users_permissions (user_id, permission_name) VALUES ('841337d
 INSERT INTO school.users_permissions (user_id, permission_name) VALUES ('841337d4-9f05-11ed-a8fc-0242ac120002', 'PERMISSION_CREATE');
 INSERT INTO school.users_permissions (user_id, permission_name) VALUES ('841337d4-9f05-11ed-a8fc-0242ac120002', 'PERMISSION_READ');
 INSERT INTO school.users_permissions (user_id, permission_name) VALUES ('841337d4-9f05-11ed-a8fc-0242ac120002', 'PERMISSION_UPDATE');
-INSERT INTO school.users_permissions (user_id, permission_name) VALUES ('841337d4-9f05-11ed-a8fc-0242ac120002', 'PERMISSION_DELETE');
\ No newline at end of file
+INSERT INTO school.users_permissions (user_id, permission_name) VALUES ('841337d4-9f05-11ed-a8fc-0242ac120002', 'PERMISSION_DELETE');
+
+update school.groups g
+set student_count = (select count(*) from school.students s where s.group_id = g.group_id);
+
+update school.courses c
+set enrollment_count = (select count(*) from school.students_courses sc
+                        where sc.course_id = c.course_id and sc.student_id is not null);
\ No newline at end of file
@@ -8,6 +8,8 @@ import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import ru.zhadaev.schoolsecurity.api.dto.GroupDto;
 import ru.zhadaev.schoolsecurity.service.GroupService;
 
@@ -64,14 +66,27 @@ class GroupControllerTest {
     @Test
     void findById_shouldReturnValidGroupDto() {
         GroupDto groupDto = groupDtoCreate(ID_1, NAME_1);
+        doReturn(3L).when(groupService).findVersionById(ID1);
         Mockito.doReturn(groupDto).when(groupService).findById(ID1);
 
-        GroupDto actual = groupController.findById(ID1);
+        ResponseEntity<GroupDto> actual = groupController.findById(ID1, null);
 
-        assertEquals(groupDto, actual);
+        assertEquals(groupDto, actual.getBody());
+        assertEquals("\"" + ID_1 + "-3\"", actual.getHeaders().getETag());
         verify(groupService, times(1)).findById(ID1);
     }
 
+    @Test
+    void findById_shouldReturnNotModified_whenETagMatches() {
+        doReturn(3L).when(groupService).findVersionById(ID1);
+
+        ResponseEntity<GroupDto> actual = groupController.findById(ID1, "\"" + ID_1 + "-3\"");
+
+        assertEquals(HttpStatus.NOT_MODIFIED, actual.getStatusCode());
+        assertNull(actual.getBody());
+        verify(groupService, never()).findById(ID1);
+    }
+
     @Test
     void deleteById_shouldExecutedOneTime() {
         doNothing().when(groupService).deleteById(ID1);
@@ -93,22 +108,22 @@ class GroupControllerTest {
     @Test
     void updatePut_shouldReturnValidGroupDto() {
         GroupDto groupDto = groupDtoCreate(ID_1, NAME_1);
-        doReturn(groupDto).when(groupService).updatePut(groupDto, ID1);
+        doReturn(groupDto).when(groupService).updatePut(groupDto, ID1, null);
 
-        GroupDto actual = groupController.updatePut(groupDto, ID1);
+        GroupDto actual = groupController.updatePut(groupDto, ID1, null);
 
-        verify(groupService, times(1)).updatePut(groupDto, ID1);
+        verify(groupService, times(1)).updatePut(groupDto, ID1, null);
         assertEquals(groupDto, actual);
     }
 
     @Test
     void updatePatch_shouldReturnValidGroupDto() {
         GroupDto groupDto = groupDtoCreate(ID_1, NAME_1);
-        doReturn(groupDto).when(groupService).updatePatch(groupDto, ID1);
+        doReturn(groupDto).when(groupService).updatePatch(groupDto, ID1, 3L);
 
-        GroupDto actual = groupController.updatePatch(groupDto, ID1);
+        GroupDto actual = groupController.updatePatch(groupDto, ID1, "\"" + ID_1 + "-3\"");
 
-        verify(groupService, times(1)).updatePatch(groupDto, ID1);
+        verify(groupService, times(1)).updatePatch(groupDto, ID1, 3L);
         assertEquals(groupDto, actual);
     }
 
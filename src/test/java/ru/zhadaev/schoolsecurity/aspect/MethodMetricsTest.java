@@ -0,0 +1,119 @@
+package ru.zhadaev.schoolsecurity.aspect;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import ru.zhadaev.schoolsecurity.exception.NotFoundException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MethodMetricsTest {
+    private MeterRegistry registry;
+    private SampleController controller;
+    private SampleService service;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        controller = proxy(new SampleController());
+        service = proxy(new SampleService());
+    }
+
+    @Test
+    void timeController_shouldRecordSuccessWithResponseStatus_whenMethodReturns() {
+        controller.save();
+        controller.save();
+
+        Timer timer = registry.get("method.invocations")
+                .tags("class", "SampleController", "method", "save", "outcome", "SUCCESS", "status", "201")
+                .timer();
+        assertEquals(2, timer.count());
+    }
+
+    @Test
+    void timeController_shouldRecordErrorWithMappedStatus_whenMethodThrows() {
+        assertThrows(NotFoundException.class, () -> controller.findById());
+
+        assertEquals(1, registry.get("method.invocations")
+                .tags("class", "SampleController", "method", "findById", "outcome", "ERROR", "status", "404")
+                .timer().count());
+        assertEquals(1, registry.get("method.errors")
+                .tags("class", "SampleController", "method", "findById", "exception", "NotFoundException")
+                .counter().count());
+    }
+
+    @Test
+    void timeService_shouldRecordWithoutStatusAndReleaseInFlight_whenMethodReturns() {
+        service.count();
+
+        assertEquals(1, registry.get("method.invocations")
+                .tags("class", "SampleService", "method", "count", "outcome", "SUCCESS", "status", "none")
+                .timer().count());
+        assertNotNull(registry.get("method.invocations").tags("method", "count").timer().takeSnapshot().histogramCounts());
+        assertEquals(0, registry.get("method.in.flight").tags("method", "count").gauge().value());
+    }
+
+    @Test
+    void timeService_shouldCountEveryOverloadInOneGauge_whenOverloadsAreInFlight() {
+        service.update(() -> service.update("patch", () -> assertEquals(2,
+                registry.get("method.in.flight").tags("class", "SampleService", "method", "update").gauge().value())));
+
+        assertEquals(0, registry.get("method.in.flight").tags("method", "update").gauge().value());
+        assertEquals(2, registry.get("method.invocations").tags("method", "update").timer().count());
+    }
+
+    @Test
+    void timeService_shouldRecordNothing_whenCalledOnSyntheticThread() throws InterruptedException {
+        Thread thread = SyntheticTraffic.newThread(service::count, "warm-up-1");
+        thread.start();
+        thread.join();
+
+        assertNull(registry.find("method.invocations").timer());
+        assertNull(registry.find("method.in.flight").gauge());
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T proxy(T target) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new MethodMetrics(registry));
+        return (T) factory.getProxy();
+    }
+
+    @RestController
+    static class SampleController {
+        @ResponseStatus(HttpStatus.CREATED)
+        public String save() {
+            return "saved";
+        }
+
+        public String findById() {
+            throw new NotFoundException("Sample not found");
+        }
+    }
+
+    @Service
+    static class SampleService {
+        public long count() {
+            return 1;
+        }
+
+        public void update(Runnable inside) {
+            inside.run();
+        }
+
+        public void update(String mode, Runnable inside) {
+            inside.run();
+        }
+    }
+}
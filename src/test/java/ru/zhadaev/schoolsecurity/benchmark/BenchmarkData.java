@@ -0,0 +1,104 @@
+package ru.zhadaev.schoolsecurity.benchmark;
+
+import ru.zhadaev.schoolsecurity.dao.entities.Course;
+import ru.zhadaev.schoolsecurity.dao.entities.Group;
+import ru.zhadaev.schoolsecurity.dao.entities.Permission;
+import ru.zhadaev.schoolsecurity.dao.entities.Student;
+import ru.zhadaev.schoolsecurity.dao.entities.User;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Entity graphs shaped like one page loaded by the list endpoints: students share their group and course
+ * instances, as they do within one persistence context. The same seed always builds the same data.
+ */
+final class BenchmarkData {
+    private static final int GROUPS = 10;
+    private static final int COURSES = 50;
+    private static final int PERMISSIONS = 20;
+
+    private final Random random = new Random(42);
+
+    List<Student> students(int count, int coursesPerStudent) {
+        List<Group> groups = groups(GROUPS);
+        List<Course> courses = courses(Math.max(COURSES, coursesPerStudent));
+        List<Student> students = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Student student = new Student();
+            student.setId(uuid());
+            student.setFirstName("First" + i);
+            student.setLastName("Last" + i);
+            student.setGroup(groups.get(i % groups.size()));
+            Set<Course> enrolled = new HashSet<>();
+            int first = random.nextInt(courses.size());
+            for (int j = 0; j < coursesPerStudent; j++) {
+                enrolled.add(courses.get((first + j) % courses.size()));
+            }
+            student.setCourses(enrolled);
+            students.add(student);
+        }
+        return students;
+    }
+
+    List<Course> courses(int count) {
+        List<Course> courses = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Course course = new Course();
+            course.setId(uuid());
+            course.setName("Course " + i);
+            course.setDescription("Subject Course " + i);
+            courses.add(course);
+        }
+        return courses;
+    }
+
+    List<Group> groups(int count) {
+        List<Group> groups = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Group group = new Group();
+            group.setId(uuid());
+            group.setName("GR-" + i);
+            groups.add(group);
+        }
+        return groups;
+    }
+
+    List<Permission> permissions(int count) {
+        List<Permission> permissions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Permission permission = new Permission();
+            permission.setName("PERMISSION_" + i);
+            permission.setDescription("Permission number " + i);
+            permissions.add(permission);
+        }
+        return permissions;
+    }
+
+    List<User> users(int count, int permissionsPerUser) {
+        List<Permission> permissions = permissions(Math.max(PERMISSIONS, permissionsPerUser));
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            User user = new User();
+            user.setId(uuid());
+            user.setLogin("user" + i);
+            user.setPassword("$2a$10$" + uuid().toString().replace("-", "") + "abcdefghijklmnopqrstu");
+            Set<Permission> granted = new HashSet<>();
+            int first = random.nextInt(permissions.size());
+            for (int j = 0; j < permissionsPerUser; j++) {
+                granted.add(permissions.get((first + j) % permissions.size()));
+            }
+            user.setPermissions(granted);
+            users.add(user);
+        }
+        return users;
+    }
+
+    private UUID uuid() {
+        return new UUID(random.nextLong(), random.nextLong());
+    }
+}
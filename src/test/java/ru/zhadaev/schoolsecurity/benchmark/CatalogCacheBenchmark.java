@@ -0,0 +1,133 @@
+package ru.zhadaev.schoolsecurity.benchmark;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import ru.zhadaev.schoolsecurity.Application;
+import ru.zhadaev.schoolsecurity.api.dto.CourseDto;
+import ru.zhadaev.schoolsecurity.api.dto.GroupDto;
+import ru.zhadaev.schoolsecurity.service.CourseService;
+import ru.zhadaev.schoolsecurity.service.GroupService;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Throughput of the course and group catalog through {@link CourseService} and {@link GroupService}
+ * on the integration-test data in H2, with the second-level and query caches off and on.
+ * Each op is a findById or a findAll page; every 1001st op patches a course description instead,
+ * giving the 1000:1 read/write mix of the catalog.
+ * In-memory H2 answers in microseconds, so the time per op is mostly transaction, security and aspect overhead;
+ * the {@code statements} counter (JDBC statements over the measurement iterations) shows the round trips
+ * a networked database would pay for.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class CatalogCacheBenchmark {
+    private static final int WRITE_EVERY = 1001;
+
+    @Param({"false", "true"})
+    private boolean cached;
+
+    private ConfigurableApplicationContext context;
+    private Statistics statistics;
+    private CourseService courseService;
+    private GroupService groupService;
+    private List<UUID> courseIds;
+    private List<UUID> groupIds;
+    private final Pageable page = PageRequest.of(0, 10);
+    private long ops;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .run("--spring.jpa.properties.hibernate.cache.use_second_level_cache=" + cached,
+                        "--spring.jpa.properties.hibernate.cache.use_query_cache=" + cached,
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=warn",
+                        "--logging.level.ru.zhadaev.schoolsecurity=warn");
+        new ResourceDatabasePopulator(
+                new ClassPathResource("schemaIntegrationTest.sql"),
+                new ClassPathResource("dataIntegrationTest.sql"))
+                .execute(context.getBean(DataSource.class));
+        SecurityContextHolder.setStrategyName(SecurityContextHolder.MODE_GLOBAL);
+        SecurityContextHolder.getContext().setAuthentication(
+                new TestingAuthenticationToken("admin", "adminPass", "COURSE_READ", "COURSE_UPDATE", "GROUP_READ"));
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+        courseService = context.getBean(CourseService.class);
+        groupService = context.getBean(GroupService.class);
+        courseIds = courseService.findAll(PageRequest.of(0, 50)).stream()
+                .map(CourseDto::getId)
+                .collect(Collectors.toList());
+        groupIds = groupService.findAll(null, PageRequest.of(0, 50)).stream()
+                .map(GroupDto::getId)
+                .collect(Collectors.toList());
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        SecurityContextHolder.clearContext();
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Statements {
+        public long statements;
+    }
+
+    @Benchmark
+    public Object catalog(Statements counters) {
+        long before = statistics.getPrepareStatementCount();
+        Object result = execute(ops++);
+        counters.statements += statistics.getPrepareStatementCount() - before;
+        return result;
+    }
+
+    private Object execute(long op) {
+        if (op % WRITE_EVERY == WRITE_EVERY - 1) {
+            CourseDto courseDto = new CourseDto();
+            courseDto.setDescription("Revision " + op);
+            return courseService.updatePatch(courseDto, courseIds.get((int) (op % courseIds.size())));
+        }
+        switch ((int) (op % 4)) {
+            case 0:
+                return courseService.findById(courseIds.get((int) (op % courseIds.size())));
+            case 1:
+                return courseService.findAll(page);
+            case 2:
+                return groupService.findById(groupIds.get((int) (op % groupIds.size())));
+            default:
+                return groupService.findAll(null, page);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CatalogCacheBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
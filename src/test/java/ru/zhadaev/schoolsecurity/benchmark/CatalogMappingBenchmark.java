@@ -0,0 +1,137 @@
+package ru.zhadaev.schoolsecurity.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.zhadaev.schoolsecurity.api.dto.CourseDto;
+import ru.zhadaev.schoolsecurity.api.dto.GroupDto;
+import ru.zhadaev.schoolsecurity.api.dto.PermissionDto;
+import ru.zhadaev.schoolsecurity.api.dto.UserDto;
+import ru.zhadaev.schoolsecurity.api.mappers.CourseMapper;
+import ru.zhadaev.schoolsecurity.api.mappers.CourseMapperImpl;
+import ru.zhadaev.schoolsecurity.api.mappers.GroupMapper;
+import ru.zhadaev.schoolsecurity.api.mappers.GroupMapperImpl;
+import ru.zhadaev.schoolsecurity.api.mappers.PermissionMapper;
+import ru.zhadaev.schoolsecurity.api.mappers.PermissionMapperImpl;
+import ru.zhadaev.schoolsecurity.api.mappers.UserMapper;
+import ru.zhadaev.schoolsecurity.api.mappers.UserMapperImpl;
+import ru.zhadaev.schoolsecurity.dao.entities.Course;
+import ru.zhadaev.schoolsecurity.dao.entities.Group;
+import ru.zhadaev.schoolsecurity.dao.entities.Permission;
+import ru.zhadaev.schoolsecurity.dao.entities.User;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The course, group, permission and user mappers on one page of entities, and the Jackson serialization
+ * of the resulting DTOs. Users carry {@code PERMISSIONS_PER_USER} permissions each.
+ * See {@link StudentMappingBenchmark} for the student mapper.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class CatalogMappingBenchmark {
+    private static final int PERMISSIONS_PER_USER = 8;
+
+    @Param({"20", "200", "2000"})
+    private int pageSize;
+
+    private final CourseMapper courseMapper = new CourseMapperImpl();
+    private final GroupMapper groupMapper = new GroupMapperImpl();
+    private final PermissionMapper permissionMapper = new PermissionMapperImpl();
+    private final UserMapper userMapper = new UserMapperImpl();
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final ObjectWriter courseWriter = objectMapper.writerFor(new TypeReference<List<CourseDto>>() {
+    });
+    private final ObjectWriter groupWriter = objectMapper.writerFor(new TypeReference<List<GroupDto>>() {
+    });
+    private final ObjectWriter permissionWriter = objectMapper.writerFor(new TypeReference<List<PermissionDto>>() {
+    });
+    private final ObjectWriter userWriter = objectMapper.writerFor(new TypeReference<List<UserDto>>() {
+    });
+
+    private List<Course> courses;
+    private List<Group> groups;
+    private List<Permission> permissions;
+    private List<User> users;
+    private List<CourseDto> courseDtos;
+    private List<GroupDto> groupDtos;
+    private List<PermissionDto> permissionDtos;
+    private List<UserDto> userDtos;
+
+    @Setup
+    public void setUp() {
+        BenchmarkData data = new BenchmarkData();
+        courses = data.courses(pageSize);
+        groups = data.groups(pageSize);
+        permissions = data.permissions(pageSize);
+        users = data.users(pageSize, PERMISSIONS_PER_USER);
+        courseDtos = courseMapper.toDto(courses);
+        groupDtos = groupMapper.toDto(groups);
+        permissionDtos = permissionMapper.toDto(permissions);
+        userDtos = userMapper.toDto(users);
+    }
+
+    @Benchmark
+    public List<CourseDto> courseToDto() {
+        return courseMapper.toDto(courses);
+    }
+
+    @Benchmark
+    public List<GroupDto> groupToDto() {
+        return groupMapper.toDto(groups);
+    }
+
+    @Benchmark
+    public List<PermissionDto> permissionToDto() {
+        return permissionMapper.toDto(permissions);
+    }
+
+    @Benchmark
+    public List<UserDto> userToDto() {
+        return userMapper.toDto(users);
+    }
+
+    @Benchmark
+    public void serializeCourses() throws IOException {
+        courseWriter.writeValue(OutputStream.nullOutputStream(), courseDtos);
+    }
+
+    @Benchmark
+    public void serializeGroups() throws IOException {
+        groupWriter.writeValue(OutputStream.nullOutputStream(), groupDtos);
+    }
+
+    @Benchmark
+    public void serializePermissions() throws IOException {
+        permissionWriter.writeValue(OutputStream.nullOutputStream(), permissionDtos);
+    }
+
+    @Benchmark
+    public void serializeUsers() throws IOException {
+        userWriter.writeValue(OutputStream.nullOutputStream(), userDtos);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CatalogMappingBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/jmh-" + CatalogMappingBenchmark.class.getSimpleName() + ".json")
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,140 @@
+package ru.zhadaev.schoolsecurity.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the first roster page of one course, as issued by {@code StudentRepository.findIdsByCourseId},
+ * on an H2 database with 20 000 students and 120 000 enrollments.
+ * {@code memberOf} is the SQL Hibernate generated for the former {@code c member of s.courses} query,
+ * {@code joinByCourseId} the SQL of the current {@code join s.courses c} query;
+ * {@code courseIndex} toggles the (course_id, student_id) index on students_courses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class CourseRosterBenchmark {
+    private static final int STUDENTS = 20_000;
+    private static final int COURSES = 50;
+    private static final int COURSES_PER_STUDENT = 6;
+    private static final int PAGE_SIZE = 50;
+
+    private static final String MEMBER_OF = "select student0_.student_id from school.students student0_ " +
+            "inner join school.courses course1_ on (course1_.course_id=?) " +
+            "where course1_.course_id in (select courses2_.course_id from school.students_courses courses2_ " +
+            "where student0_.student_id=courses2_.student_id) " +
+            "order by student0_.student_id limit ?";
+    private static final String JOIN_BY_COURSE_ID = "select student0_.student_id from school.students student0_ " +
+            "inner join school.students_courses courses1_ on student0_.student_id=courses1_.student_id " +
+            "inner join school.courses course2_ on courses1_.course_id=course2_.course_id " +
+            "where course2_.course_id=? order by student0_.student_id limit ?";
+
+    @Param({"false", "true"})
+    private boolean courseIndex;
+
+    private Connection connection;
+    private PreparedStatement memberOf;
+    private PreparedStatement joinByCourseId;
+    private final List<UUID> courseIds = new ArrayList<>();
+    private int next;
+
+    @Setup
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:roster" + courseIndex);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create schema school");
+            statement.execute("create table school.courses (course_id uuid primary key, course_name varchar(255))");
+            statement.execute("create table school.students (student_id uuid primary key, last_name varchar(255))");
+            statement.execute("create table school.students_courses (student_id uuid null, course_id uuid null, " +
+                    "foreign key (student_id) references school.students (student_id) on delete set null, " +
+                    "foreign key (course_id) references school.courses (course_id) on delete set null, " +
+                    "unique (student_id, course_id))");
+        }
+        Random random = new Random(42);
+        try (PreparedStatement insert = connection.prepareStatement("insert into school.courses values (?, ?)")) {
+            for (int i = 0; i < COURSES; i++) {
+                UUID id = new UUID(random.nextLong(), random.nextLong());
+                courseIds.add(id);
+                insert.setObject(1, id);
+                insert.setString(2, "Course " + i);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+        try (PreparedStatement student = connection.prepareStatement("insert into school.students values (?, ?)");
+             PreparedStatement enrollment = connection.prepareStatement("insert into school.students_courses values (?, ?)")) {
+            for (int i = 0; i < STUDENTS; i++) {
+                UUID id = new UUID(random.nextLong(), random.nextLong());
+                student.setObject(1, id);
+                student.setString(2, "Student " + i);
+                student.addBatch();
+                int first = random.nextInt(COURSES);
+                for (int j = 0; j < COURSES_PER_STUDENT; j++) {
+                    enrollment.setObject(1, id);
+                    enrollment.setObject(2, courseIds.get((first + j * 7) % COURSES));
+                    enrollment.addBatch();
+                }
+            }
+            student.executeBatch();
+            enrollment.executeBatch();
+        }
+        if (courseIndex) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("create index students_courses_course_id_student_id_idx " +
+                        "on school.students_courses (course_id, student_id)");
+            }
+        }
+        memberOf = connection.prepareStatement(MEMBER_OF);
+        joinByCourseId = connection.prepareStatement(JOIN_BY_COURSE_ID);
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public void memberOf(Blackhole blackhole) throws SQLException {
+        page(memberOf, blackhole);
+    }
+
+    @Benchmark
+    public void joinByCourseId(Blackhole blackhole) throws SQLException {
+        page(joinByCourseId, blackhole);
+    }
+
+    private void page(PreparedStatement query, Blackhole blackhole) throws SQLException {
+        query.setObject(1, courseIds.get(next++ % COURSES));
+        query.setInt(2, PAGE_SIZE);
+        try (ResultSet rows = query.executeQuery()) {
+            while (rows.next()) {
+                blackhole.consume(rows.getObject(1));
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CourseRosterBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
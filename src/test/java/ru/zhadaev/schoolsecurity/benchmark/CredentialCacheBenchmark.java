@@ -0,0 +1,71 @@
+package ru.zhadaev.schoolsecurity.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+import ru.zhadaev.schoolsecurity.config.CachingDaoAuthenticationProvider;
+import ru.zhadaev.schoolsecurity.config.VerifiedCredentialCache;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one HTTP Basic authentication with and without the verified-credential cache.
+ * The password hash has the same BCrypt strength as the accounts in dataTest.sql.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class CredentialCacheBenchmark {
+    private static final String LOGIN = "admin";
+    private static final String PASSWORD = "adminPass";
+    private static final String ENCODED_PASSWORD = "$2a$12$amzrg/wj.ZdH0NvZcE4PAefVyGVQwQpy6Aql54Po0WyHkT3RcszCS";
+
+    private CachingDaoAuthenticationProvider uncached;
+    private CachingDaoAuthenticationProvider cached;
+
+    @Setup
+    public void setUp() {
+        UserDetailsService userDetailsService = new InMemoryUserDetailsManager(User.withUsername(LOGIN)
+                .password(ENCODED_PASSWORD)
+                .authorities("STUDENT_READ")
+                .build());
+        uncached = provider(userDetailsService, false);
+        cached = provider(userDetailsService, true);
+    }
+
+    @Benchmark
+    public Authentication authenticateWithoutCache() {
+        return uncached.authenticate(new UsernamePasswordAuthenticationToken(LOGIN, PASSWORD));
+    }
+
+    @Benchmark
+    public Authentication authenticateWithCache() {
+        return cached.authenticate(new UsernamePasswordAuthenticationToken(LOGIN, PASSWORD));
+    }
+
+    private static CachingDaoAuthenticationProvider provider(UserDetailsService userDetailsService, boolean cacheEnabled) {
+        VerifiedCredentialCache cache = new VerifiedCredentialCache(cacheEnabled, Duration.ofMinutes(5), 10_000);
+        CachingDaoAuthenticationProvider provider = new CachingDaoAuthenticationProvider(cache);
+        provider.setUserDetailsService(userDetailsService);
+        provider.setPasswordEncoder(new BCryptPasswordEncoder());
+        return provider;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CredentialCacheBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,247 @@
+package ru.zhadaev.schoolsecurity.benchmark;
+
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.aspectj.lang.reflect.SourceLocation;
+import org.aspectj.runtime.internal.AroundClosure;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import ru.zhadaev.schoolsecurity.api.dto.CourseDto;
+import ru.zhadaev.schoolsecurity.api.dto.GroupDto;
+import ru.zhadaev.schoolsecurity.api.dto.StudentDto;
+import ru.zhadaev.schoolsecurity.aspect.AsyncLogWriter;
+import ru.zhadaev.schoolsecurity.aspect.Logging;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request-thread cost of the controller logging advice around a call that returns a page of 50 students,
+ * for the former aspect (copied below as {@link LegacyLogging}) and the current one, with the controller
+ * logger at OFF and INFO. Events are formatted by a no-op appender, so the numbers exclude console I/O.
+ * Run with {@code -prof gc} to see the allocation rate; the current aspect allocates nothing at OFF.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class LoggingAspectBenchmark {
+    private static final int PAGE_SIZE = 50;
+
+    @Param({"OFF", "INFO"})
+    private String level;
+
+    private StubJoinPoint joinPoint;
+    private LegacyLogging legacy;
+    private AsyncLogWriter writer;
+    private Logging current;
+    private Logging currentSampled;
+
+    @Setup
+    public void setUp() {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        ch.qos.logback.classic.Logger logger = context.getLogger(StudentController.class);
+        logger.setLevel(ch.qos.logback.classic.Level.toLevel(level));
+        logger.setAdditive(false);
+        AppenderBase<ILoggingEvent> formatting = new AppenderBase<>() {
+            @Override
+            protected void append(ILoggingEvent event) {
+                event.getFormattedMessage();
+            }
+        };
+        formatting.setContext(context);
+        formatting.start();
+        logger.addAppender(formatting);
+
+        List<StudentDto> page = new ArrayList<>();
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            page.add(student(i));
+        }
+        joinPoint = new StubJoinPoint(new StudentController(), new Object[]{null, PageRequest.of(0, PAGE_SIZE)}, page);
+        legacy = new LegacyLogging();
+        writer = new AsyncLogWriter(1024);
+        current = new Logging(writer, 1.0);
+        currentSampled = new Logging(writer, 0.01);
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        writer.destroy();
+    }
+
+    @Benchmark
+    public Object legacyAspect() throws Throwable {
+        return legacy.logAroundApi(joinPoint);
+    }
+
+    @Benchmark
+    public Object currentAspect() throws Throwable {
+        return current.logAroundApi(joinPoint);
+    }
+
+    @Benchmark
+    public Object currentAspectSampled() throws Throwable {
+        return currentSampled.logAroundApi(joinPoint);
+    }
+
+    private static StudentDto student(int i) {
+        GroupDto group = new GroupDto();
+        group.setId(UUID.randomUUID());
+        group.setName("YT-80");
+        CourseDto course = new CourseDto();
+        course.setId(UUID.randomUUID());
+        course.setName("Computer science");
+        course.setDescription("Subject Computer science");
+        StudentDto student = new StudentDto();
+        student.setId(UUID.randomUUID());
+        student.setFirstName("Mia" + i);
+        student.setLastName("Phillips" + i);
+        student.setGroup(group);
+        student.setCourses(new HashSet<>(List.of(course)));
+        return student;
+    }
+
+    /**
+     * The controller advice as it was before the sampled asynchronous rewrite.
+     */
+    static class LegacyLogging {
+        private final ConcurrentHashMap<String, Logger> loggerMap = new ConcurrentHashMap<>();
+
+        private Logger logger(String fqName) {
+            return loggerMap.computeIfAbsent(fqName, LoggerFactory::getLogger);
+        }
+
+        Object logAroundApi(ProceedingJoinPoint joinPoint) throws Throwable {
+            String declaringTypeName = joinPoint.getSignature().getDeclaringTypeName();
+            if (logger(declaringTypeName).isInfoEnabled()) {
+                logger(declaringTypeName).info("Enter: {}() with argument[s] = {}", joinPoint.getSignature().getName(), Arrays.toString(joinPoint.getArgs()));
+            }
+            try {
+                long start = System.currentTimeMillis();
+                Object result = joinPoint.proceed();
+                long elapsedTime = System.currentTimeMillis() - start;
+                logger(declaringTypeName).info("Exit: {}() with result = {}. Execution time : {} ms", joinPoint.getSignature().getName(), result, elapsedTime);
+                return result;
+            } catch (IllegalArgumentException e) {
+                logger(declaringTypeName).error("Illegal argument: {} in {}()", Arrays.toString(joinPoint.getArgs()), joinPoint.getSignature().getName());
+                throw e;
+            }
+        }
+    }
+
+    static class StudentController {
+    }
+
+    static class StubJoinPoint implements ProceedingJoinPoint, Signature {
+        private final Object target;
+        private final Object[] args;
+        private final Object result;
+
+        StubJoinPoint(Object target, Object[] args, Object result) {
+            this.target = target;
+            this.args = args;
+            this.result = result;
+        }
+
+        @Override
+        public Object proceed() {
+            return result;
+        }
+
+        @Override
+        public Object proceed(Object[] args) {
+            return result;
+        }
+
+        @Override
+        public void set$AroundClosure(AroundClosure arc) {
+        }
+
+        @Override
+        public Object getThis() {
+            return target;
+        }
+
+        @Override
+        public Object getTarget() {
+            return target;
+        }
+
+        @Override
+        public Object[] getArgs() {
+            return args;
+        }
+
+        @Override
+        public Signature getSignature() {
+            return this;
+        }
+
+        @Override
+        public SourceLocation getSourceLocation() {
+            return null;
+        }
+
+        @Override
+        public String getKind() {
+            return METHOD_EXECUTION;
+        }
+
+        @Override
+        public StaticPart getStaticPart() {
+            return null;
+        }
+
+        @Override
+        public String toShortString() {
+            return "findAll";
+        }
+
+        @Override
+        public String toLongString() {
+            return "findAll";
+        }
+
+        @Override
+        public String getName() {
+            return "findAll";
+        }
+
+        @Override
+        public int getModifiers() {
+            return 1;
+        }
+
+        @Override
+        public Class getDeclaringType() {
+            return StudentController.class;
+        }
+
+        @Override
+        public String getDeclaringTypeName() {
+            return StudentController.class.getName();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(LoggingAspectBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
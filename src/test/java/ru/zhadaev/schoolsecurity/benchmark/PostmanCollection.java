@@ -0,0 +1,97 @@
+package ru.zhadaev.schoolsecurity.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Value;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The requests of a Postman v2.1 collection, flattened in collection order. Only what a replay needs is
+ * read: method, path and query (the host of the exported URL is dropped), raw body and basic auth,
+ * inherited from the folder or collection unless the request sets its own.
+ * The role is taken from the parentheses in the collection name, e.g. {@code School (TEACHER)}.
+ */
+@Value
+class PostmanCollection {
+    private static final Pattern ROLE = Pattern.compile("\\((.+)\\)");
+
+    String role;
+    List<Request> requests;
+
+    @Value
+    static class Request {
+        String folder;
+        String name;
+        String method;
+        String pathAndQuery;
+        String body;
+        String authorization;
+
+        String label() {
+            return (folder == null) ? name : folder + " / " + name;
+        }
+    }
+
+    static PostmanCollection read(Path file, ObjectMapper objectMapper) throws IOException {
+        JsonNode collection = objectMapper.readTree(file.toFile());
+        String name = collection.path("info").path("name").asText(file.getFileName().toString());
+        Matcher role = ROLE.matcher(name);
+        List<Request> requests = new ArrayList<>();
+        collect(collection.path("item"), null, authorization(collection.path("auth"), null), requests);
+        return new PostmanCollection(role.find() ? role.group(1) : name, requests);
+    }
+
+    private static void collect(JsonNode items, String folder, String authorization, List<Request> requests) {
+        for (JsonNode item : items) {
+            if (item.has("item")) {
+                collect(item.get("item"), item.path("name").asText(),
+                        authorization(item.path("auth"), authorization), requests);
+                continue;
+            }
+            JsonNode request = item.path("request");
+            JsonNode url = request.path("url");
+            JsonNode body = request.path("body");
+            requests.add(new Request(
+                    folder,
+                    item.path("name").asText(),
+                    request.path("method").asText("GET"),
+                    pathAndQuery(url.isTextual() ? url.asText() : url.path("raw").asText()),
+                    "raw".equals(body.path("mode").asText()) ? body.path("raw").asText() : null,
+                    authorization(request.path("auth"), authorization)));
+        }
+    }
+
+    private static String authorization(JsonNode auth, String inherited) {
+        if (auth.isMissingNode() || auth.isNull()) {
+            return inherited;
+        }
+        if (!"basic".equals(auth.path("type").asText())) {
+            return null;
+        }
+        String username = "";
+        String password = "";
+        for (JsonNode entry : auth.path("basic")) {
+            if ("username".equals(entry.path("key").asText())) {
+                username = entry.path("value").asText();
+            } else if ("password".equals(entry.path("key").asText())) {
+                password = entry.path("value").asText();
+            }
+        }
+        return "Basic " + Base64.getEncoder()
+                .encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String pathAndQuery(String rawUrl) {
+        URI uri = URI.create(rawUrl.replace(" ", "%20"));
+        return (uri.getRawQuery() == null) ? uri.getRawPath() : uri.getRawPath() + "?" + uri.getRawQuery();
+    }
+}
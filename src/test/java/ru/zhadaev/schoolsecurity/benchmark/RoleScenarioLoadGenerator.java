@@ -0,0 +1,275 @@
+package ru.zhadaev.schoolsecurity.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import ru.zhadaev.schoolsecurity.Application;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Replays the per-role Postman collections in {@code src/test/java/.../config} as weighted scenarios and reports
+ * throughput and latency percentiles per request and per role.
+ * <p>
+ * Each virtual user picks a role by its weight, sends that role's requests in collection order, and repeats
+ * until the duration is over. Virtual users start evenly spread over the ramp-up, and only requests sent after
+ * the ramp-up are counted. Unless {@code load.base-url} is set, the application is booted on embedded H2 with the
+ * integration-test data and the second-level cache on, as in production.
+ * <p>
+ * Configured with system properties:
+ * <ul>
+ *     <li>{@code load.concurrency}: virtual users, 16 by default</li>
+ *     <li>{@code load.ramp-up}, {@code load.duration}: ISO-8601 durations, {@code PT10S} and {@code PT1M}</li>
+ *     <li>{@code load.weights}: e.g. {@code USER=40,TEACHER=25,MANAGER=20,ADMIN=10,SUPER_ADMIN=5}</li>
+ *     <li>{@code load.exclude-folders}: collection folders not replayed, {@code Delete} by default</li>
+ *     <li>{@code load.collections}: directory of the collections</li>
+ *     <li>{@code load.base-url}: an already running application</li>
+ * </ul>
+ */
+public class RoleScenarioLoadGenerator {
+    private static final String COLLECTIONS = "src/test/java/ru/zhadaev/schoolsecurity/config";
+    private static final String WEIGHTS = "USER=40,TEACHER=25,MANAGER=20,ADMIN=10,SUPER_ADMIN=5";
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final Map<String, Map<String, RequestStats>> statsByRole = new ConcurrentHashMap<>();
+    private final String baseUrl;
+    private final List<PostmanCollection> scenarios;
+    private final int[] cumulativeWeights;
+
+    RoleScenarioLoadGenerator(String baseUrl, List<PostmanCollection> scenarios, int[] weights) {
+        this.baseUrl = baseUrl;
+        this.scenarios = scenarios;
+        this.cumulativeWeights = Arrays.copyOf(weights, weights.length);
+        Arrays.parallelPrefix(cumulativeWeights, Integer::sum);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int concurrency = Integer.getInteger("load.concurrency", 16);
+        Duration rampUp = Duration.parse(System.getProperty("load.ramp-up", "PT10S"));
+        Duration duration = Duration.parse(System.getProperty("load.duration", "PT1M"));
+        Set<String> excludedFolders = Set.of(System.getProperty("load.exclude-folders", "Delete").split(","));
+
+        Map<String, PostmanCollection> collections = new LinkedHashMap<>();
+        ObjectMapper objectMapper = new ObjectMapper();
+        try (Stream<Path> files = Files.list(Paths.get(System.getProperty("load.collections", COLLECTIONS)))) {
+            for (Path file : files.filter(f -> f.toString().endsWith(".postman_collection.json")).sorted()
+                    .collect(Collectors.toList())) {
+                PostmanCollection collection = PostmanCollection.read(file, objectMapper);
+                collections.put(collection.getRole(), new PostmanCollection(collection.getRole(),
+                        collection.getRequests().stream()
+                                .filter(request -> !excludedFolders.contains(request.getFolder()))
+                                .collect(Collectors.toList())));
+            }
+        }
+        List<PostmanCollection> scenarios = new ArrayList<>();
+        List<Integer> weights = new ArrayList<>();
+        for (String entry : System.getProperty("load.weights", WEIGHTS).split(",")) {
+            String[] roleAndWeight = entry.split("=");
+            PostmanCollection collection = collections.get(roleAndWeight[0].trim());
+            if (collection == null) {
+                throw new IllegalArgumentException("No collection for role " + roleAndWeight[0] + ", found " + collections.keySet());
+            }
+            scenarios.add(collection);
+            weights.add(Integer.parseInt(roleAndWeight[1].trim()));
+        }
+
+        String baseUrl = System.getProperty("load.base-url");
+        ConfigurableApplicationContext context = (baseUrl == null) ? boot() : null;
+        if (context != null) {
+            baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+        }
+        try {
+            RoleScenarioLoadGenerator generator = new RoleScenarioLoadGenerator(baseUrl, scenarios,
+                    weights.stream().mapToInt(Integer::intValue).toArray());
+            generator.run(concurrency, rampUp, duration);
+            generator.report(duration.toNanos() / 1e9);
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext boot() {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class)
+                .profiles("test")
+                .run("--server.port=0",
+                        "--spring.jpa.properties.hibernate.cache.use_second_level_cache=true",
+                        "--spring.jpa.properties.hibernate.cache.use_query_cache=true",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=warn",
+                        "--logging.level.ru.zhadaev.schoolsecurity=warn");
+        new ResourceDatabasePopulator(
+                new ClassPathResource("schemaIntegrationTest.sql"),
+                new ClassPathResource("dataIntegrationTest.sql"))
+                .execute(context.getBean(DataSource.class));
+        return context;
+    }
+
+    void run(int concurrency, Duration rampUp, Duration duration) throws InterruptedException {
+        long start = System.nanoTime();
+        long measureFrom = start + rampUp.toNanos();
+        long end = measureFrom + duration.toNanos();
+        ExecutorService virtualUsers = Executors.newFixedThreadPool(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            long startAt = start + rampUp.toNanos() * i / concurrency;
+            Random random = new Random(i);
+            virtualUsers.execute(() -> {
+                sleepUntil(startAt);
+                while (System.nanoTime() < end) {
+                    PostmanCollection scenario = pick(random);
+                    for (PostmanCollection.Request request : scenario.getRequests()) {
+                        if (System.nanoTime() >= end) {
+                            break;
+                        }
+                        send(scenario.getRole(), request, measureFrom);
+                    }
+                }
+            });
+        }
+        virtualUsers.shutdown();
+        virtualUsers.awaitTermination(rampUp.plus(duration).plusMinutes(1).toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private PostmanCollection pick(Random random) {
+        int ticket = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        int i = 0;
+        while (cumulativeWeights[i] <= ticket) {
+            i++;
+        }
+        return scenarios.get(i);
+    }
+
+    private void send(String role, PostmanCollection.Request request, long measureFrom) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + request.getPathAndQuery()))
+                .timeout(Duration.ofSeconds(30))
+                .method(request.getMethod(), (request.getBody() == null) ?
+                        HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofString(request.getBody()));
+        if (request.getBody() != null) {
+            builder.header("Content-Type", "application/json");
+        }
+        if (request.getAuthorization() != null) {
+            builder.header("Authorization", request.getAuthorization());
+        }
+        long sentAt = System.nanoTime();
+        int status;
+        try {
+            status = client.send(builder.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException e) {
+            status = 0;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (sentAt >= measureFrom) {
+            statsByRole.computeIfAbsent(role, r -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(request.label(), label -> new RequestStats())
+                    .record(System.nanoTime() - sentAt, status);
+        }
+    }
+
+    void report(double seconds) {
+        System.out.printf("%n%-12s %-45s %8s %8s %8s %8s %8s %8s %7s %7s %7s %7s%n", "role", "request",
+                "count", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms", "2xx", "4xx", "5xx", "failed");
+        RequestStats all = new RequestStats();
+        for (PostmanCollection scenario : scenarios) {
+            Map<String, RequestStats> stats = statsByRole.getOrDefault(scenario.getRole(), Map.of());
+            RequestStats role = new RequestStats();
+            for (PostmanCollection.Request request : scenario.getRequests()) {
+                RequestStats requestStats = stats.get(request.label());
+                if (requestStats != null) {
+                    print(scenario.getRole(), request.label(), requestStats, seconds);
+                    role.add(requestStats);
+                }
+            }
+            print(scenario.getRole(), "(all requests)", role, seconds);
+            all.add(role);
+        }
+        print("(all roles)", "", all, seconds);
+    }
+
+    private static void print(String role, String request, RequestStats stats, double seconds) {
+        Histogram latencies = stats.latencies;
+        System.out.printf("%-12s %-45.45s %8d %8.1f %8.2f %8.2f %8.2f %8.2f %7d %7d %7d %7d%n", role, request,
+                latencies.getTotalCount(), latencies.getTotalCount() / seconds,
+                latencies.getValueAtPercentile(50) / 1e3, latencies.getValueAtPercentile(90) / 1e3,
+                latencies.getValueAtPercentile(99) / 1e3, latencies.getMaxValue() / 1e3,
+                stats.successful.sum(), stats.clientErrors.sum(), stats.serverErrors.sum(), stats.failed.sum());
+    }
+
+    private static void sleepUntil(long nanoTime) {
+        long remaining = nanoTime - System.nanoTime();
+        if (remaining > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Latencies in microseconds; {@code successful} counts 2xx and 3xx responses, {@code failed} requests
+     * that got no response.
+     */
+    static class RequestStats {
+        final Histogram latencies = new ConcurrentHistogram(3);
+        final LongAdder successful = new LongAdder();
+        final LongAdder clientErrors = new LongAdder();
+        final LongAdder serverErrors = new LongAdder();
+        final LongAdder failed = new LongAdder();
+
+        void record(long nanos, int status) {
+            latencies.recordValue(TimeUnit.NANOSECONDS.toMicros(nanos));
+            if (status == 0) {
+                failed.increment();
+            } else if (status >= 500) {
+                serverErrors.increment();
+            } else if (status >= 400) {
+                clientErrors.increment();
+            } else {
+                successful.increment();
+            }
+        }
+
+        void add(RequestStats other) {
+            latencies.add(other.latencies);
+            successful.add(other.successful.sum());
+            clientErrors.add(other.clientErrors.sum());
+            serverErrors.add(other.serverErrors.sum());
+            failed.add(other.failed.sum());
+        }
+    }
+}
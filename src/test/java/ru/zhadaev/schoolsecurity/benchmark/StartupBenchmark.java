@@ -0,0 +1,125 @@
+package ru.zhadaev.schoolsecurity.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Measures time-to-first-request: each run launches the application in a new JVM and counts the milliseconds
+ * until an authenticated {@code GET /api/courses} first answers 200, so lazily created beans, the security chain
+ * and the JPA bootstrap are all paid for. By default the application runs on embedded H2 with the test data,
+ * once with the {@code test} profile and once with {@code test,fast-start}.
+ * <p>
+ * Configured with system properties:
+ * <ul>
+ *     <li>{@code startup.runs}: runs per variant, 5 by default</li>
+ *     <li>{@code startup.variants}: {@code name=profiles} pairs separated by {@code ;}</li>
+ *     <li>{@code startup.jvm-args}: e.g. {@code -XX:SharedArchiveFile=target/cds/application.jsa}</li>
+ *     <li>{@code startup.classpath}: the application classpath, this JVM's by default; a class-data sharing
+ *     archive only works with the jar classpath it was recorded with, see the {@code cds} Maven profile</li>
+ *     <li>{@code startup.args}: more application arguments, e.g. a datasource</li>
+ * </ul>
+ */
+public class StartupBenchmark {
+    private static final String VARIANTS = "baseline=test;fast-start=test,fast-start";
+    private static final Duration TIMEOUT = Duration.ofMinutes(2);
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+
+    public static void main(String[] args) throws Exception {
+        int runs = Integer.getInteger("startup.runs", 5);
+        Map<String, String> variants = new LinkedHashMap<>();
+        for (String variant : System.getProperty("startup.variants", VARIANTS).split(";")) {
+            String[] nameAndProfiles = variant.split("=", 2);
+            variants.put(nameAndProfiles[0].trim(), nameAndProfiles[1].trim());
+        }
+        StartupBenchmark benchmark = new StartupBenchmark();
+        Map<String, long[]> results = new LinkedHashMap<>();
+        for (Map.Entry<String, String> variant : variants.entrySet()) {
+            long[] millis = new long[runs];
+            for (int run = 0; run < runs; run++) {
+                millis[run] = benchmark.timeToFirstRequest(variant.getValue());
+                System.out.printf("%-12s run %d: %d ms%n", variant.getKey(), run + 1, millis[run]);
+            }
+            results.put(variant.getKey(), millis);
+        }
+        System.out.printf("%n%-12s %-24s %8s %8s %8s%n", "variant", "profiles", "min ms", "median", "max ms");
+        results.forEach((name, millis) -> {
+            Arrays.sort(millis);
+            System.out.printf("%-12s %-24s %8d %8d %8d%n", name, variants.get(name),
+                    millis[0], millis[millis.length / 2], millis[millis.length - 1]);
+        });
+    }
+
+    long timeToFirstRequest(String profiles) throws IOException, InterruptedException {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(split(System.getProperty("startup.jvm-args", "")));
+        command.add("-cp");
+        command.add(System.getProperty("startup.classpath", System.getProperty("java.class.path")));
+        command.add("ru.zhadaev.schoolsecurity.Application");
+        command.add("--spring.profiles.active=" + profiles);
+        command.add("--server.port=" + port);
+        command.add("--test.data.enable=true");
+        command.add("--spring.jpa.show-sql=false");
+        command.add("--logging.level.root=warn");
+        command.add("--logging.level.ru.zhadaev.schoolsecurity=warn");
+        command.addAll(split(System.getProperty("startup.args", "")));
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/courses"))
+                .header("Authorization", "Basic " + Base64.getEncoder()
+                        .encodeToString("user:userPass".getBytes(StandardCharsets.UTF_8)))
+                .timeout(Duration.ofSeconds(30))
+                .build();
+        long started = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.appendTo(new File(System.getProperty("java.io.tmpdir"),
+                        "startup-benchmark.log")))
+                .start();
+        try {
+            while (System.nanoTime() - started < TIMEOUT.toNanos()) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("The application exited with " + process.exitValue()
+                            + ", see startup-benchmark.log in " + System.getProperty("java.io.tmpdir"));
+                }
+                try {
+                    if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        return (System.nanoTime() - started) / 1_000_000;
+                    }
+                } catch (IOException e) {
+                    // not serving yet
+                }
+                Thread.sleep(10);
+            }
+            throw new IllegalStateException("No response within " + TIMEOUT);
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    private static List<String> split(String args) {
+        return args.isBlank() ? List.of() : Arrays.asList(args.trim().split("\\s+"));
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
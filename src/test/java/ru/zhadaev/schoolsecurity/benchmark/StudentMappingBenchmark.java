@@ -0,0 +1,89 @@
+package ru.zhadaev.schoolsecurity.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.zhadaev.schoolsecurity.api.dto.StudentDto;
+import ru.zhadaev.schoolsecurity.api.mappers.StudentMapper;
+import ru.zhadaev.schoolsecurity.api.mappers.StudentMapperImpl;
+import ru.zhadaev.schoolsecurity.dao.entities.Student;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CPU time and allocation of one page of students on its way out of {@code GET /api/students}:
+ * {@link StudentMapper#toDto(List)} with the nested group and courses, the Jackson serialization of the DTOs,
+ * and both together. {@code toDtoWithoutRelations} is the export path, {@code toEntity} the bulk import one.
+ * Serialization writes to a discarding stream, so the response buffer is not measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class StudentMappingBenchmark {
+
+    @Param({"20", "200", "2000"})
+    private int pageSize;
+
+    @Param({"1", "10", "50"})
+    private int coursesPerStudent;
+
+    private final StudentMapper mapper = new StudentMapperImpl();
+    private final ObjectWriter writer = Jackson2ObjectMapperBuilder.json().build()
+            .writerFor(new TypeReference<List<StudentDto>>() {
+            });
+    private List<Student> students;
+    private List<StudentDto> dtos;
+
+    @Setup
+    public void setUp() {
+        students = new BenchmarkData().students(pageSize, coursesPerStudent);
+        dtos = mapper.toDto(students);
+    }
+
+    @Benchmark
+    public List<StudentDto> toDto() {
+        return mapper.toDto(students);
+    }
+
+    @Benchmark
+    public List<StudentDto> toDtoWithoutRelations() {
+        return mapper.toDtoWithoutRelations(students);
+    }
+
+    @Benchmark
+    public List<Student> toEntity() {
+        return mapper.toEntity(dtos);
+    }
+
+    @Benchmark
+    public void serialize() throws IOException {
+        writer.writeValue(OutputStream.nullOutputStream(), dtos);
+    }
+
+    @Benchmark
+    public void toDtoAndSerialize() throws IOException {
+        writer.writeValue(OutputStream.nullOutputStream(), mapper.toDto(students));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(StudentMappingBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/jmh-" + StudentMappingBenchmark.class.getSimpleName() + ".json")
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,130 @@
+package ru.zhadaev.schoolsecurity.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import ru.zhadaev.schoolsecurity.Application;
+import ru.zhadaev.schoolsecurity.api.controllers.StudentController;
+import ru.zhadaev.schoolsecurity.api.dto.StudentDto;
+
+import javax.sql.DataSource;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Latency of {@link StudentController#updatePatch} and {@link StudentController#mergePatch} changing one
+ * column of a student on the integration-test data in H2, and the size of the UPDATEs they send:
+ * {@code updateBytes} counts the SQL text and {@code updateParameters} the bound values, summed like
+ * {@code updates} over each iteration.
+ * In-memory H2 writes no WAL, so the latency mostly shows the flush and dirty-checking cost;
+ * the statement counters show what a networked database would have to log and index. The latency keeps
+ * falling for about half a minute while Hibernate and H2 are compiled, hence the long warm-up.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 6, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class StudentPatchBenchmark {
+    private static final UUID STUDENT_ID = UUID.fromString("a46e9a8e-f535-4437-8bbf-c3a7216e74e5");
+
+    private ConfigurableApplicationContext context;
+    private StudentController studentController;
+    private ObjectMapper objectMapper;
+    private long ops;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .run("--spring.jpa.properties.hibernate.session_factory.statement_inspector=" + UpdateSizes.class.getName(),
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=warn",
+                        "--logging.level.ru.zhadaev.schoolsecurity=warn");
+        new ResourceDatabasePopulator(
+                new ClassPathResource("schemaIntegrationTest.sql"),
+                new ClassPathResource("dataIntegrationTest.sql"))
+                .execute(context.getBean(DataSource.class));
+        SecurityContextHolder.setStrategyName(SecurityContextHolder.MODE_GLOBAL);
+        SecurityContextHolder.getContext().setAuthentication(
+                new TestingAuthenticationToken("admin", "adminPass", "STUDENT_UPDATE"));
+        studentController = context.getBean(StudentController.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        SecurityContextHolder.clearContext();
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Statements {
+        public long updates;
+        public long updateBytes;
+        public long updateParameters;
+    }
+
+    @Benchmark
+    public StudentDto patchFirstName(Statements counters) {
+        StudentDto studentDto = new StudentDto();
+        studentDto.setFirstName("Mia " + ops++);
+        return measure(counters, () -> studentController.updatePatch(studentDto, STUDENT_ID, null));
+    }
+
+    @Benchmark
+    public StudentDto mergePatchFirstName(Statements counters) {
+        ObjectNode document = objectMapper.createObjectNode().put("firstName", "Mia " + ops++);
+        return measure(counters, () -> studentController.mergePatch(document, STUDENT_ID, null));
+    }
+
+    private static StudentDto measure(Statements counters, Supplier<StudentDto> patch) {
+        long updates = UpdateSizes.UPDATES.get();
+        long bytes = UpdateSizes.BYTES.get();
+        long parameters = UpdateSizes.PARAMETERS.get();
+        StudentDto result = patch.get();
+        counters.updates += UpdateSizes.UPDATES.get() - updates;
+        counters.updateBytes += UpdateSizes.BYTES.get() - bytes;
+        counters.updateParameters += UpdateSizes.PARAMETERS.get() - parameters;
+        return result;
+    }
+
+    public static class UpdateSizes implements StatementInspector {
+        static final AtomicLong UPDATES = new AtomicLong();
+        static final AtomicLong BYTES = new AtomicLong();
+        static final AtomicLong PARAMETERS = new AtomicLong();
+
+        @Override
+        public String inspect(String sql) {
+            if (sql.startsWith("update school.students")) {
+                UPDATES.incrementAndGet();
+                BYTES.addAndGet(sql.length());
+                PARAMETERS.addAndGet(sql.chars().filter(c -> c == '?').count());
+            }
+            return sql;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(StudentPatchBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,73 @@
+package ru.zhadaev.schoolsecurity.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VerifiedCredentialCacheTest {
+
+    private final String LOGIN = "admin";
+    private final String PASSWORD = "adminPass";
+    private final String ENCODED_PASSWORD = "$2a$12$amzrg/wj.ZdH0NvZcE4PAefVyGVQwQpy6Aql54Po0WyHkT3RcszCS";
+
+    @Test
+    void isVerified_shouldReturnTrue_whenCredentialsWereVerified() {
+        VerifiedCredentialCache cache = new VerifiedCredentialCache(true, Duration.ofMinutes(5), 10);
+
+        cache.putVerified(LOGIN, PASSWORD, ENCODED_PASSWORD);
+
+        assertTrue(cache.isVerified(LOGIN, PASSWORD, ENCODED_PASSWORD));
+    }
+
+    @Test
+    void isVerified_shouldReturnFalse_whenPasswordOrHashDiffers() {
+        VerifiedCredentialCache cache = new VerifiedCredentialCache(true, Duration.ofMinutes(5), 10);
+
+        cache.putVerified(LOGIN, PASSWORD, ENCODED_PASSWORD);
+
+        assertFalse(cache.isVerified(LOGIN, "wrongPass", ENCODED_PASSWORD));
+        assertFalse(cache.isVerified(LOGIN, PASSWORD, "$2a$12$changedHash"));
+        assertFalse(cache.isVerified("manager", PASSWORD, ENCODED_PASSWORD));
+    }
+
+    @Test
+    void isVerified_shouldReturnFalse_whenEntryExpired() {
+        VerifiedCredentialCache cache = new VerifiedCredentialCache(true, Duration.ZERO, 10);
+
+        cache.putVerified(LOGIN, PASSWORD, ENCODED_PASSWORD);
+
+        assertFalse(cache.isVerified(LOGIN, PASSWORD, ENCODED_PASSWORD));
+    }
+
+    @Test
+    void putVerified_shouldKeepSizeBounded() {
+        VerifiedCredentialCache cache = new VerifiedCredentialCache(true, Duration.ofMinutes(5), 3);
+
+        for (int i = 0; i < 10; i++) {
+            cache.putVerified(LOGIN + i, PASSWORD, ENCODED_PASSWORD);
+        }
+
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    void evictAll_shouldForgetAllCredentials() {
+        VerifiedCredentialCache cache = new VerifiedCredentialCache(true, Duration.ofMinutes(5), 10);
+        cache.putVerified(LOGIN, PASSWORD, ENCODED_PASSWORD);
+
+        cache.evictAll();
+
+        assertFalse(cache.isVerified(LOGIN, PASSWORD, ENCODED_PASSWORD));
+    }
+
+    @Test
+    void isVerified_shouldReturnFalse_whenCacheDisabled() {
+        VerifiedCredentialCache cache = new VerifiedCredentialCache(false, Duration.ofMinutes(5), 10);
+
+        cache.putVerified(LOGIN, PASSWORD, ENCODED_PASSWORD);
+
+        assertFalse(cache.isVerified(LOGIN, PASSWORD, ENCODED_PASSWORD));
+    }
+}
@@ -0,0 +1,47 @@
+package ru.zhadaev.schoolsecurity.integration;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestConstructor;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@RequiredArgsConstructor
+@ActiveProfiles("test")
+@TestConstructor(autowireMode = TestConstructor.AutowireMode.ALL)
+public class ActuatorSecurityIntegrationTest {
+
+    private final MockMvc mockMvc;
+
+    @Test
+    void liveness_shouldBeOpen_whenNotAuthenticated() throws Exception {
+        mockMvc.perform(get("/actuator/health/liveness"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/actuator/metrics"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @WithMockUser(username = "user", authorities = {"GROUP_READ", "COURSE_READ", "STUDENT_READ"})
+    void actuator_shouldReturnForbidden_whenUserCannotManagePermissions() throws Exception {
+        for (String endpoint : new String[]{"/actuator/metrics", "/actuator/prometheus", "/actuator/startup", "/actuator/health"}) {
+            mockMvc.perform(get(endpoint))
+                    .andExpect(status().isForbidden());
+        }
+    }
+
+    @Test
+    @WithMockUser(username = "super_admin", authorities = {"PERMISSION_READ", "PERMISSION_UPDATE"})
+    void actuator_shouldReturnMetrics_whenUserCanManagePermissions() throws Exception {
+        mockMvc.perform(get("/actuator/metrics"))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,151 @@
+package ru.zhadaev.schoolsecurity.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestConstructor;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.zhadaev.schoolsecurity.api.dto.CourseDto;
+import ru.zhadaev.schoolsecurity.api.dto.GroupDto;
+import ru.zhadaev.schoolsecurity.api.dto.StudentDto;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@RequiredArgsConstructor
+@ActiveProfiles("test")
+@TestConstructor(autowireMode = TestConstructor.AutowireMode.ALL)
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=true",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=true"
+})
+@Sql({
+        "classpath:schemaIntegrationTest.sql",
+        "classpath:dataIntegrationTest.sql"
+})
+@Sql(
+        scripts = {"classpath:schemaDropIntegrationTest.sql"},
+        executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD
+)
+@WithMockUser(username = "admin", password = "adminPass",
+        authorities = {"COURSE_READ", "COURSE_UPDATE", "GROUP_READ", "GROUP_UPDATE", "STUDENT_CREATE"})
+public class CatalogCacheIntegrationTest {
+
+    private final String COURSE_ID = "1a94740f-cab8-4522-91fa-ad996c72b92d";
+    private final String COURSE_NAME = "Computer science";
+    private final String GROUP_ID = "46fa82ce-4e6d-45ae-a4e4-914971f1eb4f";
+    private final String GROUP_NAME = "YT-80";
+
+    private final MockMvc mockMvc;
+    private final EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+        statistics = sessionFactory.getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void findAll_shouldOnlyReadChangeStamp_whenPageWasRead() throws Exception {
+        mockMvc.perform(get("/api/courses").param("page", "0").param("size", "5"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/groups").param("page", "0").param("size", "5"))
+                .andExpect(status().isOk());
+        long statements = statistics.getPrepareStatementCount();
+
+        mockMvc.perform(get("/api/courses").param("page", "0").param("size", "5"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/groups").param("page", "0").param("size", "5"))
+                .andExpect(status().isOk());
+
+        // the change stamp behind each list ETag is read from the database, the page from the cache
+        assertEquals(statements + 2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findById_shouldReturnUpdatedCourse_whenCourseWasPatched() throws Exception {
+        mockMvc.perform(get("/api/courses/{id}", COURSE_ID))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/courses").param("page", "0").param("size", "50"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.id == '%s')].name", COURSE_ID).value(COURSE_NAME));
+        CourseDto courseDto = new CourseDto();
+        courseDto.setName("Informatics");
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        mockMvc.perform(patch("/api/courses/{id}", COURSE_ID)
+                        .contentType("application/json")
+                        .content(objectMapper.writeValueAsString(courseDto)))
+                .andExpect(status().isAccepted());
+
+        mockMvc.perform(get("/api/courses/{id}", COURSE_ID))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Informatics"));
+        mockMvc.perform(get("/api/courses").param("page", "0").param("size", "50"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.id == '%s')].name", COURSE_ID).value("Informatics"));
+    }
+
+    @Test
+    void findById_shouldOnlyReadVersion_whenStudentJoinedGroupAndCourse() throws Exception {
+        mockMvc.perform(get("/api/groups/{id}", GROUP_ID))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/courses/{id}", COURSE_ID))
+                .andExpect(status().isOk());
+        StudentDto studentDto = new StudentDto();
+        studentDto.setFirstName("Mia");
+        studentDto.setLastName("Phillips");
+        studentDto.setGroup(groupDtoCreate(GROUP_ID, GROUP_NAME));
+        studentDto.setCourses(Set.of(courseDtoCreate(COURSE_ID, COURSE_NAME)));
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        mockMvc.perform(post("/api/students")
+                        .contentType("application/json")
+                        .content(objectMapper.writeValueAsString(studentDto)))
+                .andExpect(status().isCreated());
+        long statements = statistics.getPrepareStatementCount();
+
+        mockMvc.perform(get("/api/groups/{id}", GROUP_ID))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/courses/{id}", COURSE_ID))
+                .andExpect(status().isOk());
+
+        // the version behind each ETag is read from the database, the entity from the cache
+        assertEquals(statements + 2, statistics.getPrepareStatementCount());
+    }
+
+    private GroupDto groupDtoCreate(String id, String name) {
+        GroupDto groupDto = new GroupDto();
+        groupDto.setId(UUID.fromString(id));
+        groupDto.setName(name);
+        return groupDto;
+    }
+
+    private CourseDto courseDtoCreate(String id, String name) {
+        CourseDto courseDto = new CourseDto();
+        courseDto.setId(UUID.fromString(id));
+        courseDto.setName(name);
+        return courseDto;
+    }
+}
@@ -0,0 +1,129 @@
+package ru.zhadaev.schoolsecurity.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestConstructor;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import ru.zhadaev.schoolsecurity.api.dto.CourseDto;
+import ru.zhadaev.schoolsecurity.api.dto.GroupDto;
+import ru.zhadaev.schoolsecurity.api.dto.StudentDto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@RequiredArgsConstructor
+@ActiveProfiles("test")
+@TestConstructor(autowireMode = TestConstructor.AutowireMode.ALL)
+@Sql({
+        "classpath:schemaIntegrationTest.sql",
+        "classpath:dataIntegrationTest.sql"
+})
+@Sql(
+        scripts = {"classpath:schemaDropIntegrationTest.sql"},
+        executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD
+)
+@WithMockUser(username = "admin", password = "adminPass",
+        authorities = {"COURSE_READ", "COURSE_UPDATE", "GROUP_READ", "GROUP_UPDATE",
+                "STUDENT_READ", "STUDENT_CREATE", "STUDENT_UPDATE"})
+public class ConditionalRequestIntegrationTest {
+
+    private final String COURSE_ID = "1a94740f-cab8-4522-91fa-ad996c72b92d";
+    private final String GROUP_ID = "46fa82ce-4e6d-45ae-a4e4-914971f1eb4f";
+    private final String STUDENT_ID = "a46e9a8e-f535-4437-8bbf-c3a7216e74e5";
+
+    private final MockMvc mockMvc;
+    private final ObjectMapper objectMapper;
+
+    @Test
+    void findById_shouldReturnNotModified_whenETagMatches() throws Exception {
+        String etag = etag(get("/api/students/{id}", STUDENT_ID));
+
+        mockMvc.perform(get("/api/students/{id}", STUDENT_ID).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void findById_shouldReturnNewETag_whenStudentGroupWasRenamed() throws Exception {
+        String etag = etag(get("/api/students/{id}", STUDENT_ID));
+        GroupDto group = new GroupDto();
+        group.setName("AA-11");
+        mockMvc.perform(patch("/api/groups/{id}", GROUP_ID)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(group)))
+                .andExpect(status().isAccepted());
+
+        mockMvc.perform(get("/api/students/{id}", STUDENT_ID).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.group.name").value("AA-11"));
+    }
+
+    @Test
+    void updatePatch_shouldReturnPreconditionFailed_whenIfMatchIsStale() throws Exception {
+        String etag = etag(get("/api/courses/{id}", COURSE_ID));
+        CourseDto course = new CourseDto();
+        course.setDescription("Updated description");
+        mockMvc.perform(patch("/api/courses/{id}", COURSE_ID)
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(course)))
+                .andExpect(status().isAccepted());
+
+        mockMvc.perform(patch("/api/courses/{id}", COURSE_ID)
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(course)))
+                .andExpect(status().isPreconditionFailed());
+        assertNotEquals(etag, etag(get("/api/courses/{id}", COURSE_ID)));
+    }
+
+    @Test
+    void findAll_shouldReturnNewETag_onlyWhenListedTableChanged() throws Exception {
+        String courses = etag(get("/api/courses").param("page", "0").param("size", "5"));
+        StudentDto student = new StudentDto();
+        student.setFirstName("Anna");
+        student.setLastName("Smith");
+        mockMvc.perform(post("/api/students")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(student)))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/api/courses").param("page", "0").param("size", "5")
+                        .header(HttpHeaders.IF_NONE_MATCH, courses))
+                .andExpect(status().isNotModified());
+
+        CourseDto course = new CourseDto();
+        course.setName("Informatics");
+        mockMvc.perform(patch("/api/courses/{id}", COURSE_ID)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(course)))
+                .andExpect(status().isAccepted());
+
+        mockMvc.perform(get("/api/courses").param("page", "0").param("size", "5")
+                        .header(HttpHeaders.IF_NONE_MATCH, courses))
+                .andExpect(status().isOk());
+        assertNotEquals(courses, etag(get("/api/courses").param("page", "0").param("size", "5")));
+        assertEquals(etag(get("/api/courses").param("page", "0").param("size", "5")),
+                etag(get("/api/courses").param("page", "0").param("size", "5")));
+    }
+
+    private String etag(RequestBuilder request) throws Exception {
+        return mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+}
@@ -0,0 +1,66 @@
+package ru.zhadaev.schoolsecurity.integration;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestConstructor;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.zhadaev.schoolsecurity.config.InitDatabaseConfig;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@RequiredArgsConstructor
+@ActiveProfiles("test")
+@TestConstructor(autowireMode = TestConstructor.AutowireMode.ALL)
+@TestPropertySource(properties = {
+        "test.data.enable=true",
+        "test.data.async=true",
+        "spring.datasource.url=jdbc:h2:mem:initdb"
+})
+public class DatabaseInitIntegrationTest {
+
+    private final MockMvc mockMvc;
+    private final JdbcTemplate jdbcTemplate;
+    private final InitDatabaseConfig initDatabaseConfig;
+
+    @Test
+    void initData_shouldLoadDataScriptInBackground_andReportReadyWhenDone() throws Exception {
+        long deadline = System.currentTimeMillis() + 30_000;
+        int status;
+        do {
+            status = mockMvc.perform(get("/actuator/health/readiness")).andReturn().getResponse().getStatus();
+            if (status != 200) {
+                Thread.sleep(50);
+            }
+        } while (status != 200 && System.currentTimeMillis() < deadline);
+
+        assertEquals(200, status);
+        assertEquals(InitDatabaseConfig.State.DONE, initDatabaseConfig.getState());
+        List<String> script = List.of(new String(new ClassPathResource("dataTest.sql").getInputStream().readAllBytes(),
+                StandardCharsets.UTF_8).split("\n"));
+        for (String table : List.of("groups", "courses", "students", "students_courses", "permissions", "users",
+                "users_permissions")) {
+            long inserts = script.stream().filter(line -> line.startsWith("INSERT INTO school." + table + " ")).count();
+            assertEquals(inserts, count("select count(*) from school." + table), table);
+        }
+        assertEquals(0, count("select count(*) from school.groups g where student_count <> " +
+                "(select count(*) from school.students s where s.group_id = g.group_id)"));
+        assertEquals(0, count("select count(*) from school.courses c where enrollment_count <> " +
+                "(select count(*) from school.students_courses sc where sc.course_id = c.course_id)"));
+    }
+
+    private long count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+}
@@ -0,0 +1,115 @@
+package ru.zhadaev.schoolsecurity.integration;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestConstructor;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@RequiredArgsConstructor
+@ActiveProfiles("test")
+@TestConstructor(autowireMode = TestConstructor.AutowireMode.ALL)
+@TestPropertySource(properties =
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+                "ru.zhadaev.schoolsecurity.integration.DeleteRoundTripIntegrationTest$SqlRecorder")
+@Sql({
+        "classpath:schemaIntegrationTest.sql",
+        "classpath:dataIntegrationTest.sql"
+})
+@Sql(
+        scripts = {"classpath:schemaDropIntegrationTest.sql"},
+        executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD
+)
+@WithMockUser(username = "admin", password = "adminPass",
+        authorities = {"STUDENT_DELETE", "COURSE_DELETE", "PERMISSION_DELETE"})
+public class DeleteRoundTripIntegrationTest {
+
+    private final String STUDENT_ID = "a46e9a8e-f535-4437-8bbf-c3a7216e74e5";
+    private final String COURSE_ID = "1a94740f-cab8-4522-91fa-ad996c72b92d";
+
+    private final MockMvc mockMvc;
+    private final JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        SqlRecorder.STATEMENTS.clear();
+    }
+
+    @Test
+    void deleteById_shouldDeleteStudentWithoutReadingIt() throws Exception {
+        mockMvc.perform(delete("/api/students/{id}", STUDENT_ID))
+                .andExpect(status().isOk());
+
+        List<String> statements = statementsExceptChangeStamps();
+        assertTrue(statements.stream().noneMatch(sql -> sql.startsWith("select")), statements.toString());
+        assertEquals(1, statements.stream().filter(sql -> sql.startsWith("delete from school.students ")).count(),
+                statements.toString());
+        assertEquals(0, count("select count(*) from school.students_courses where student_id is null"));
+        assertEquals(0, count("select count(*) from school.groups g where student_count <> " +
+                "(select count(*) from school.students s where s.group_id = g.group_id)"));
+        assertEquals(0, count("select count(*) from school.courses c where enrollment_count <> " +
+                "(select count(*) from school.students_courses sc where sc.course_id = c.course_id)"));
+    }
+
+    @Test
+    void deleteById_shouldDeleteCourseAndItsEnrollments() throws Exception {
+        mockMvc.perform(delete("/api/courses/{id}", COURSE_ID))
+                .andExpect(status().isOk());
+
+        assertTrue(statementsExceptChangeStamps().stream().noneMatch(sql -> sql.startsWith("select")));
+        assertEquals(0, count("select count(*) from school.students_courses where course_id is null"));
+    }
+
+    @Test
+    void deleteById_shouldReturnNotFoundAndLeaveCounters_whenNothingWasDeleted() throws Exception {
+        mockMvc.perform(delete("/api/students/{id}", UUID.randomUUID()))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(delete("/api/courses/{id}", UUID.randomUUID()))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(delete("/api/permissions/{id}", "UNKNOWN"))
+                .andExpect(status().isNotFound());
+
+        assertEquals(0, count("select count(*) from school.groups g where student_count <> " +
+                "(select count(*) from school.students s where s.group_id = g.group_id)"));
+    }
+
+    private long count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+
+    private List<String> statementsExceptChangeStamps() {
+        return SqlRecorder.STATEMENTS.stream()
+                .filter(sql -> !sql.contains("school.change_stamps"))
+                .collect(Collectors.toList());
+    }
+
+    public static class SqlRecorder implements StatementInspector {
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -14,9 +14,11 @@ import org.springframework.test.context.TestConstructor;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import ru.zhadaev.schoolsecurity.api.dto.GroupDto;
+import ru.zhadaev.schoolsecurity.api.paging.KeysetCursor;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -50,10 +52,10 @@ public class GroupIntegrationTest {
     class FindTest {
         @Test
         void findAll_shouldReturnFirstPageOfListOfTwoValidGroupDto_whenNumberStudentsIsNull() throws Exception {
-            String id1 = "d73d111e-7159-48e5-9247-e050db9e0437";
-            String name1 = "OU-60";
-            String id2 = "10562d54-0acc-4fbf-baba-98c0aa77a900";
-            String name2 = "SV-51";
+            String id1 = "292f0fec-82a9-47ec-82d3-2fc0956b07dc";
+            String name1 = "NT-84";
+            String id2 = "408a9358-c6b1-4b36-8912-7bbd4803f1b1";
+            String name2 = "BA-51";
             List<GroupDto> expected = new LinkedList<>();
             expected.add(groupDtoCreate(id1, name1));
             expected.add(groupDtoCreate(id2, name2));
@@ -133,6 +135,35 @@ public class GroupIntegrationTest {
                     .andExpect(jsonPath("$..message").value(expectedMsg));
         }
 
+        @Test
+        void findAllAfter_shouldReturnEveryGroupOnce_whenAllPagesAreFollowed() throws Exception {
+            List<GroupDto> actual = new ArrayList<>();
+            int pages = 0;
+            String after = null;
+            do {
+                MockHttpServletRequestBuilder request = get("/api/groups").param("limit", "3");
+                if (after != null) {
+                    request.param("after", after);
+                }
+                MvcResult result = mockMvc.perform(request)
+                        .andExpect(status().isOk())
+                        .andReturn();
+                String responseBody = result.getResponse().getContentAsString();
+                ObjectMapper objectMapper = new ObjectMapper();
+                actual.addAll(objectMapper.readValue(responseBody, new TypeReference<List<GroupDto>>() {
+                }));
+                after = result.getResponse().getHeader(KeysetCursor.NEXT_CURSOR_HEADER);
+                pages++;
+            } while (after != null);
+
+            List<GroupDto> expected = new ArrayList<>(actual);
+            expected.sort(Comparator.comparing(GroupDto::getName)
+                    .thenComparing(group -> group.getId().toString()));
+            assertEquals(4, pages);
+            assertEquals(10, actual.stream().map(GroupDto::getId).distinct().count());
+            assertEquals(expected, actual);
+        }
+
         @Test
         void findById_shouldReturnValidGroupDto_whenEntityFoundById() throws Exception {
             String name = "YT-80";
@@ -0,0 +1,196 @@
+package ru.zhadaev.schoolsecurity.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestConstructor;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.zhadaev.schoolsecurity.api.dto.CourseDto;
+import ru.zhadaev.schoolsecurity.api.dto.StudentDto;
+import ru.zhadaev.schoolsecurity.api.patch.MergePatches;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@RequiredArgsConstructor
+@ActiveProfiles("test")
+@TestConstructor(autowireMode = TestConstructor.AutowireMode.ALL)
+@TestPropertySource(properties =
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+                "ru.zhadaev.schoolsecurity.integration.PatchRoundTripIntegrationTest$SqlRecorder")
+@Sql({
+        "classpath:schemaIntegrationTest.sql",
+        "classpath:dataIntegrationTest.sql"
+})
+@Sql(
+        scripts = {"classpath:schemaDropIntegrationTest.sql"},
+        executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD
+)
+@WithMockUser(username = "admin", password = "adminPass", authorities = {"COURSE_UPDATE", "STUDENT_UPDATE"})
+public class PatchRoundTripIntegrationTest {
+
+    private final String COURSE_ID = "1a94740f-cab8-4522-91fa-ad996c72b92d";
+    private final String STUDENT_ID = "a46e9a8e-f535-4437-8bbf-c3a7216e74e5";
+
+    private final MockMvc mockMvc;
+    private final ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        SqlRecorder.STATEMENTS.clear();
+    }
+
+    @Test
+    void updatePatch_shouldSelectAndUpdateCourseOnce() throws Exception {
+        CourseDto courseDto = new CourseDto();
+        courseDto.setDescription("Algorithms and data structures");
+
+        mockMvc.perform(patch("/api/courses/{id}", COURSE_ID)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(courseDto)))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.name").value("Computer science"))
+                .andExpect(jsonPath("$.description").value("Algorithms and data structures"));
+
+        List<String> statements = statementsExceptChangeStamps();
+        assertEquals(2, statements.size(), statements.toString());
+        assertTrue(statements.get(0).startsWith("select"), statements.get(0));
+        assertTrue(statements.get(1).startsWith("update school.courses"), statements.get(1));
+        assertTrue(statements.get(1).contains("version=?"), statements.get(1));
+        assertFalse(statements.get(1).contains("course_name"), statements.get(1));
+    }
+
+    @Test
+    void updatePatch_shouldSelectAndUpdateStudentOnce() throws Exception {
+        StudentDto studentDto = new StudentDto();
+        studentDto.setFirstName("Maya");
+
+        mockMvc.perform(patch("/api/students/{id}", STUDENT_ID)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(studentDto)))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.firstName").value("Maya"))
+                .andExpect(jsonPath("$.group.name").value("YT-80"))
+                .andExpect(jsonPath("$.courses.length()").value(3));
+
+        List<String> statements = statementsExceptChangeStamps();
+        assertEquals(2, statements.size(), statements.toString());
+        assertTrue(statements.get(0).startsWith("select"), statements.get(0));
+        assertTrue(statements.get(1).startsWith("update school.students"), statements.get(1));
+        assertTrue(statements.get(1).contains("first_name=?"), statements.get(1));
+        assertFalse(statements.get(1).contains("last_name"), statements.get(1));
+        assertFalse(statements.get(1).contains("group_id=?"), statements.get(1));
+    }
+
+    @Test
+    void mergePatch_shouldClearStudentGroup_whenMemberIsNull() throws Exception {
+        mockMvc.perform(patch("/api/students/{id}", STUDENT_ID)
+                        .contentType(MergePatches.MEDIA_TYPE)
+                        .content("{\"group\": null}"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.firstName").value("Mia"))
+                .andExpect(jsonPath("$.group").doesNotExist())
+                .andExpect(jsonPath("$.courses.length()").value(3));
+
+        List<String> updates = statementsExceptChangeStamps().stream()
+                .filter(sql -> sql.startsWith("update school.students"))
+                .collect(Collectors.toList());
+        assertEquals(List.of("update school.students set group_id=?, version=? where student_id=? and version=?"), updates);
+    }
+
+    @Test
+    void mergePatch_shouldLeaveAbsentMembersUnchanged() throws Exception {
+        mockMvc.perform(patch("/api/courses/{id}", COURSE_ID)
+                        .contentType(MergePatches.MEDIA_TYPE)
+                        .content("{\"description\": null}"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.name").value("Computer science"))
+                .andExpect(jsonPath("$.description").doesNotExist());
+
+        mockMvc.perform(patch("/api/students/{id}", STUDENT_ID)
+                        .contentType(MergePatches.MEDIA_TYPE)
+                        .content("{\"lastName\": \"Parker\", \"courses\": []}"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.firstName").value("Mia"))
+                .andExpect(jsonPath("$.lastName").value("Parker"))
+                .andExpect(jsonPath("$.group.name").value("YT-80"))
+                .andExpect(jsonPath("$.courses.length()").value(0));
+    }
+
+    @Test
+    void mergePatch_shouldReturnBadRequest_whenRequiredMemberIsNullOrBlank() throws Exception {
+        mockMvc.perform(patch("/api/students/{id}", STUDENT_ID)
+                        .contentType(MergePatches.MEDIA_TYPE)
+                        .content("{\"firstName\": null}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(patch("/api/students/{id}", STUDENT_ID)
+                        .contentType(MergePatches.MEDIA_TYPE)
+                        .content("{\"lastName\": \" \"}"))
+                .andExpect(status().isBadRequest());
+
+        assertTrue(statementsExceptChangeStamps().stream().noneMatch(sql -> sql.startsWith("update")));
+    }
+
+    @Test
+    void mergePatch_shouldMergeNestedGroupMemberByMember() throws Exception {
+        mockMvc.perform(patch("/api/students/{id}", STUDENT_ID)
+                        .contentType(MergePatches.MEDIA_TYPE)
+                        .content("{\"group\": {\"name\": \"XX-00\"}}"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.group.id").value("46fa82ce-4e6d-45ae-a4e4-914971f1eb4f"))
+                .andExpect(jsonPath("$.courses.length()").value(3));
+    }
+
+    @Test
+    void mergePatch_shouldReturnBadRequest_whenReferenceHasNoId() throws Exception {
+        mockMvc.perform(patch("/api/students/{id}", STUDENT_ID)
+                        .contentType(MergePatches.MEDIA_TYPE)
+                        .content("{\"group\": null}"))
+                .andExpect(status().isAccepted());
+        mockMvc.perform(patch("/api/students/{id}", STUDENT_ID)
+                        .contentType(MergePatches.MEDIA_TYPE)
+                        .content("{\"group\": {\"name\": \"XX-00\"}}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("The group reference must have an id"));
+        mockMvc.perform(patch("/api/students/{id}", STUDENT_ID)
+                        .contentType(MergePatches.MEDIA_TYPE)
+                        .content("{\"courses\": [{\"name\": \"Biology\"}]}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("The course reference must have an id"));
+    }
+
+    private List<String> statementsExceptChangeStamps() {
+        return SqlRecorder.STATEMENTS.stream()
+                .filter(sql -> !sql.contains("school.change_stamps"))
+                .collect(Collectors.toList());
+    }
+
+    public static class SqlRecorder implements StatementInspector {
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
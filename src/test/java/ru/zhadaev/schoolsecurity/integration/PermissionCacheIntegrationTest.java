@@ -0,0 +1,123 @@
+package ru.zhadaev.schoolsecurity.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestConstructor;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.zhadaev.schoolsecurity.api.dto.PermissionDto;
+import ru.zhadaev.schoolsecurity.api.dto.UserDto;
+import ru.zhadaev.schoolsecurity.dao.entities.Permission;
+import ru.zhadaev.schoolsecurity.dao.entities.User;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@RequiredArgsConstructor
+@ActiveProfiles("test")
+@TestConstructor(autowireMode = TestConstructor.AutowireMode.ALL)
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=true",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=true"
+})
+@Sql({
+        "classpath:schemaIntegrationTest.sql",
+        "classpath:dataIntegrationTest.sql"
+})
+@Sql(
+        scripts = {"classpath:schemaDropIntegrationTest.sql"},
+        executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD
+)
+public class PermissionCacheIntegrationTest {
+
+    private final String USER_ID = "f3f6ab13-61b4-48c0-a65b-b03363116190";
+    private final String USERNAME = "user";
+    private final String PASSWORD = "userPass";
+    private final String ADMIN_USERNAME = "super_admin";
+    private final String ADMIN_PASSWORD = "superAdminPass";
+
+    private final MockMvc mockMvc;
+    private final EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+        statistics = sessionFactory.getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void login_shouldNotQueryPermissions_whenRepeated() throws Exception {
+        mockMvc.perform(get("/api/courses").with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isOk());
+        long collectionFetches = statistics.getCollectionStatistics(User.PERMISSIONS_REGION).getFetchCount();
+        long permissionFetches = statistics.getEntityStatistics(Permission.class.getName()).getFetchCount();
+        long cacheHits = statistics.getDomainDataRegionStatistics(User.PERMISSIONS_REGION).getHitCount();
+
+        mockMvc.perform(get("/api/courses").with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isOk());
+
+        assertEquals(1, collectionFetches);
+        assertEquals(collectionFetches, statistics.getCollectionStatistics(User.PERMISSIONS_REGION).getFetchCount());
+        assertEquals(permissionFetches, statistics.getEntityStatistics(Permission.class.getName()).getFetchCount());
+        assertTrue(statistics.getDomainDataRegionStatistics(User.PERMISSIONS_REGION).getHitCount() > cacheHits);
+    }
+
+    @Test
+    void login_shouldSeeNewPermissions_whenUserPermissionsWereUpdated() throws Exception {
+        mockMvc.perform(get("/api/students").with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isOk());
+        UserDto userDto = new UserDto();
+        userDto.setPermissions(Set.of(permissionDtoCreate("COURSE_READ"), permissionDtoCreate("GROUP_READ")));
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        mockMvc.perform(patch("/api/users/{id}", USER_ID)
+                        .with(httpBasic(ADMIN_USERNAME, ADMIN_PASSWORD))
+                        .contentType("application/json")
+                        .content(objectMapper.writeValueAsString(userDto)))
+                .andExpect(status().isAccepted());
+
+        mockMvc.perform(get("/api/students").with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void login_shouldLosePermission_whenPermissionWasDeleted() throws Exception {
+        mockMvc.perform(get("/api/students").with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(delete("/api/permissions/{id}", "STUDENT_READ")
+                        .with(httpBasic(ADMIN_USERNAME, ADMIN_PASSWORD)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/students").with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/courses").with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isOk());
+    }
+
+    private PermissionDto permissionDtoCreate(String name) {
+        PermissionDto permissionDto = new PermissionDto();
+        permissionDto.setName(name);
+        return permissionDto;
+    }
+}
@@ -0,0 +1,239 @@
+package ru.zhadaev.schoolsecurity.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestConstructor;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.zhadaev.schoolsecurity.api.dto.CourseDto;
+import ru.zhadaev.schoolsecurity.api.dto.GroupDto;
+import ru.zhadaev.schoolsecurity.api.dto.PermissionDto;
+import ru.zhadaev.schoolsecurity.api.dto.StudentDto;
+import ru.zhadaev.schoolsecurity.api.dto.UserDto;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@RequiredArgsConstructor
+@ActiveProfiles("test")
+@TestConstructor(autowireMode = TestConstructor.AutowireMode.ALL)
+@TestPropertySource(properties =
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+                "ru.zhadaev.schoolsecurity.integration.PutRoundTripIntegrationTest$SqlRecorder")
+@Sql({
+        "classpath:schemaIntegrationTest.sql",
+        "classpath:dataIntegrationTest.sql"
+})
+@Sql(
+        scripts = {"classpath:schemaDropIntegrationTest.sql"},
+        executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD
+)
+@WithMockUser(username = "admin", password = "adminPass",
+        authorities = {"STUDENT_READ", "STUDENT_UPDATE", "USER_READ", "USER_UPDATE"})
+public class PutRoundTripIntegrationTest {
+
+    private final String STUDENT_ID = "a46e9a8e-f535-4437-8bbf-c3a7216e74e5";
+    private final String GROUP_ID = "408a9358-c6b1-4b36-8912-7bbd4803f1b1";
+    private final String KEPT_COURSE_ID = "1a94740f-cab8-4522-91fa-ad996c72b92d";
+    private final String ADDED_COURSE_ID = "1565f8d4-35bb-4c48-9045-c91acdb753ec";
+    private final String USER_ID = "f3f6ab13-61b4-48c0-a65b-b03363116190";
+
+    private final MockMvc mockMvc;
+    private final ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        SqlRecorder.STATEMENTS.clear();
+    }
+
+    @Test
+    void updatePut_shouldReadStudentRelationsOnceAndChangeOnlyDifferingCourseRows() throws Exception {
+        StudentDto student = new StudentDto();
+        student.setFirstName("Maya");
+        student.setLastName("Phillips");
+        student.setGroup(group(GROUP_ID));
+        student.setCourses(Set.of(course(KEPT_COURSE_ID), course(ADDED_COURSE_ID)));
+
+        mockMvc.perform(put("/api/students/{id}", STUDENT_ID)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(student)))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.firstName").value("Maya"))
+                .andExpect(jsonPath("$.group.name").value("BA-51"));
+
+        List<String> statements = statementsExceptChangeStamps();
+        assertTrue(statements.get(0).startsWith("select student0_.version"), statements.toString());
+        List<String> writes = statements.stream()
+                .skip(1)
+                .takeWhile(sql -> !sql.startsWith("select"))
+                .collect(Collectors.toList());
+        assertTrue(writes.get(0).startsWith("update school.students set"), writes.toString());
+        assertEquals(1, writes.stream().filter(sql -> sql.startsWith("delete from school.students_courses")).count(), writes.toString());
+        assertEquals(1, writes.stream().filter(sql -> sql.startsWith("insert into school.students_courses")).count(), writes.toString());
+
+        mockMvc.perform(get("/api/students/{id}", STUDENT_ID))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.group.id").value(GROUP_ID))
+                .andExpect(jsonPath("$.courses[*].id", containsInAnyOrder(KEPT_COURSE_ID, ADDED_COURSE_ID)));
+    }
+
+    @Test
+    void updatePut_shouldReturnBadRequestAndKeepStudent_whenCourseHasNoId() throws Exception {
+        String before = mockMvc.perform(get("/api/students/{id}", STUDENT_ID))
+                .andReturn().getResponse().getContentAsString();
+        StudentDto student = new StudentDto();
+        student.setFirstName("Maya");
+        student.setLastName("Phillips");
+        student.setGroup(group(GROUP_ID));
+        student.setCourses(Set.of(course(KEPT_COURSE_ID), new CourseDto()));
+
+        mockMvc.perform(put("/api/students/{id}", STUDENT_ID)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(student)))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/api/students/{id}", STUDENT_ID))
+                .andExpect(status().isOk())
+                .andExpect(content().json(before, true));
+    }
+
+    @Test
+    void updatePut_shouldReturnBadRequestAndKeepStudent_whenCourseOrGroupDoesNotExist() throws Exception {
+        String before = mockMvc.perform(get("/api/students/{id}", STUDENT_ID))
+                .andReturn().getResponse().getContentAsString();
+        StudentDto unknownCourse = new StudentDto();
+        unknownCourse.setFirstName("Maya");
+        unknownCourse.setLastName("Phillips");
+        unknownCourse.setGroup(group(GROUP_ID));
+        unknownCourse.setCourses(Set.of(course(KEPT_COURSE_ID), course(UUID.randomUUID().toString())));
+        StudentDto unknownGroup = new StudentDto();
+        unknownGroup.setFirstName("Maya");
+        unknownGroup.setLastName("Phillips");
+        unknownGroup.setGroup(group(UUID.randomUUID().toString()));
+        unknownGroup.setCourses(Set.of(course(KEPT_COURSE_ID)));
+
+        for (StudentDto student : List.of(unknownCourse, unknownGroup)) {
+            mockMvc.perform(put("/api/students/{id}", STUDENT_ID)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(student)))
+                    .andExpect(status().isBadRequest());
+        }
+
+        mockMvc.perform(get("/api/students/{id}", STUDENT_ID))
+                .andExpect(status().isOk())
+                .andExpect(content().json(before, true));
+    }
+
+    @Test
+    void updatePut_shouldReplaceUserWithoutLoadingIt() throws Exception {
+        mockMvc.perform(put("/api/users/{id}", USER_ID)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(user("GROUP_READ", "STUDENT_UPDATE"))))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.login").value("user3"));
+
+        List<String> statements = statementsExceptChangeStamps();
+        assertTrue(statements.get(0).startsWith("select user0_.version"), statements.toString());
+        assertTrue(statements.get(1).startsWith("update school.users set"), statements.toString());
+
+        mockMvc.perform(get("/api/users/{id}", USER_ID))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.permissions[*].name", containsInAnyOrder("GROUP_READ", "STUDENT_UPDATE")));
+    }
+
+    @Test
+    void updatePut_shouldReturnBadRequestAndKeepUser_whenPermissionDoesNotExist() throws Exception {
+        String before = mockMvc.perform(get("/api/users/{id}", USER_ID))
+                .andReturn().getResponse().getContentAsString();
+
+        mockMvc.perform(put("/api/users/{id}", USER_ID)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(user("GROUP_READ", "NO_SUCH_PERMISSION"))))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/api/users/{id}", USER_ID))
+                .andExpect(status().isOk())
+                .andExpect(content().json(before, true));
+    }
+
+    @Test
+    void updatePut_shouldReturnNotFoundOrPreconditionFailed_whenNoRowWasReplaced() throws Exception {
+        String content = objectMapper.writeValueAsString(user("GROUP_READ"));
+
+        mockMvc.perform(put("/api/users/{id}", UUID.randomUUID())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(content))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(put("/api/users/{id}", USER_ID)
+                        .header(HttpHeaders.IF_MATCH, "\"" + USER_ID + "-7\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(content))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    private List<String> statementsExceptChangeStamps() {
+        return SqlRecorder.STATEMENTS.stream()
+                .filter(sql -> !sql.contains("school.change_stamps"))
+                .collect(Collectors.toList());
+    }
+
+    private static GroupDto group(String id) {
+        GroupDto group = new GroupDto();
+        group.setId(UUID.fromString(id));
+        return group;
+    }
+
+    private static CourseDto course(String id) {
+        CourseDto course = new CourseDto();
+        course.setId(UUID.fromString(id));
+        return course;
+    }
+
+    private static UserDto user(String... permissionNames) {
+        UserDto user = new UserDto();
+        user.setLogin("user3");
+        user.setPassword("userPass");
+        user.setPermissions(Set.of(permissionNames).stream()
+                .map(name -> {
+                    PermissionDto permission = new PermissionDto();
+                    permission.setName(name);
+                    return permission;
+                })
+                .collect(Collectors.toSet()));
+        return user;
+    }
+
+    public static class SqlRecorder implements StatementInspector {
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
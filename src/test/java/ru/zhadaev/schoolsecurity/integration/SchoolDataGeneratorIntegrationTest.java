@@ -0,0 +1,110 @@
+package ru.zhadaev.schoolsecurity.integration;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestConstructor;
+import org.springframework.test.context.jdbc.Sql;
+import ru.zhadaev.schoolsecurity.dao.generator.CopyFileSink;
+import ru.zhadaev.schoolsecurity.dao.generator.JdbcBatchSink;
+import ru.zhadaev.schoolsecurity.dao.generator.Role;
+import ru.zhadaev.schoolsecurity.dao.generator.SchoolDataGenerator;
+import ru.zhadaev.schoolsecurity.dao.generator.SchoolShape;
+import ru.zhadaev.schoolsecurity.dao.generator.SchoolTable;
+
+import javax.sql.DataSource;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@RequiredArgsConstructor
+@ActiveProfiles("test")
+@TestConstructor(autowireMode = TestConstructor.AutowireMode.ALL)
+@Sql({
+        "classpath:schemaIntegrationTest.sql"
+})
+@Sql(
+        scripts = {"classpath:schemaDropIntegrationTest.sql"},
+        executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD
+)
+public class SchoolDataGeneratorIntegrationTest {
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Test
+    void generate_shouldLoadSchoolOfRequestedShapeWithConsistentCounters() throws Exception {
+        SchoolShape shape = shape(7);
+        try (JdbcBatchSink sink = new JdbcBatchSink(dataSource, 97)) {
+            new SchoolDataGenerator(shape, "{noop}password").generate(sink);
+        }
+
+        assertEquals(3000, count("select count(*) from school.students"));
+        assertEquals(40, count("select count(*) from school.groups"));
+        assertEquals(25, count("select count(*) from school.courses"));
+        assertEquals(20, count("select count(*) from school.permissions"));
+        assertEquals(Role.values().length + 50, count("select count(*) from school.users"));
+        assertEquals(1, count("select count(*) from school.users where user_login = 'super_admin'"));
+        assertTrue(count("select count(*) from school.students where group_id is null") > 0);
+        assertEquals(0, count("select count(*) from (select student_id from school.students_courses " +
+                "group by student_id having count(*) < 2 or count(*) > 5) t"));
+        assertEquals(0, count("select count(*) from school.groups g where student_count <> " +
+                "(select count(*) from school.students s where s.group_id = g.group_id)"));
+        assertEquals(0, count("select count(*) from school.courses c where enrollment_count <> " +
+                "(select count(*) from school.students_courses sc where sc.course_id = c.course_id)"));
+        assertTrue(count("select max(enrollment_count) from school.courses")
+                > 3 * count("select min(enrollment_count) from school.courses"));
+    }
+
+    @Test
+    void generate_shouldWriteSameCopyFiles_whenSeedIsSame(@TempDir Path first, @TempDir Path second) throws Exception {
+        try (CopyFileSink sink = new CopyFileSink(first)) {
+            new SchoolDataGenerator(shape(7), "{noop}password").generate(sink);
+        }
+        try (CopyFileSink sink = new CopyFileSink(second)) {
+            new SchoolDataGenerator(shape(7), "{noop}password").generate(sink);
+        }
+        Path other = first.resolve("other");
+        try (CopyFileSink sink = new CopyFileSink(other)) {
+            new SchoolDataGenerator(shape(8), "{noop}password").generate(sink);
+        }
+
+        for (SchoolTable table : SchoolTable.values()) {
+            String fileName = CopyFileSink.fileName(table);
+            assertEquals(Files.readAllLines(first.resolve(fileName)), Files.readAllLines(second.resolve(fileName)));
+        }
+        assertNotEquals(Files.readAllLines(first.resolve(CopyFileSink.fileName(SchoolTable.STUDENTS))),
+                Files.readAllLines(other.resolve(CopyFileSink.fileName(SchoolTable.STUDENTS))));
+        List<String> script = Files.readAllLines(first.resolve(CopyFileSink.LOAD_SCRIPT));
+        assertEquals("\\copy school.students (student_id, first_name, last_name, group_id) from 'students.copy'",
+                script.get(4));
+        assertTrue(Files.readAllLines(first.resolve(CopyFileSink.fileName(SchoolTable.STUDENTS))).stream()
+                .anyMatch(line -> line.endsWith("\t\\N")));
+    }
+
+    private static SchoolShape shape(long seed) {
+        SchoolShape shape = new SchoolShape();
+        shape.setSeed(seed);
+        shape.setStudents(3000);
+        shape.setGroups(40);
+        shape.setCourses(25);
+        shape.setStudentsWithoutGroup(0.1);
+        shape.setMinCoursesPerStudent(2);
+        shape.setMaxCoursesPerStudent(5);
+        shape.setCoursePopularitySkew(1.0);
+        shape.setUsers(50);
+        return shape;
+    }
+
+    private long count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+}
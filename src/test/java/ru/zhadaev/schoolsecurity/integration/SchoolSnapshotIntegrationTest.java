@@ -0,0 +1,88 @@
+package ru.zhadaev.schoolsecurity.integration;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestConstructor;
+import org.springframework.test.context.jdbc.Sql;
+import ru.zhadaev.schoolsecurity.dao.snapshot.SchoolSnapshot;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@RequiredArgsConstructor
+@ActiveProfiles("test")
+@TestConstructor(autowireMode = TestConstructor.AutowireMode.ALL)
+@Sql({
+        "classpath:schemaIntegrationTest.sql",
+        "classpath:dataIntegrationTest.sql"
+})
+@Sql(
+        scripts = {"classpath:schemaDropIntegrationTest.sql"},
+        executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD
+)
+public class SchoolSnapshotIntegrationTest {
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Test
+    void restore_shouldBringBackEveryRowOfTheDump(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("school.snapshot");
+        Map<String, List<String>> before = content();
+        Map<String, Long> dumped = new SchoolSnapshot(dataSource, 64).dump(file);
+        jdbcTemplate.update("delete from school.students_courses where course_id is not null");
+        jdbcTemplate.update("update school.groups set student_count = 0, group_name = null");
+        jdbcTemplate.update("insert into school.permissions (permission_name) values ('EXTRA')");
+
+        Map<String, Long> restored = new SchoolSnapshot(dataSource, 64).restore(file);
+
+        assertEquals(dumped, restored);
+        assertEquals(before, content());
+        assertEquals(200L, restored.get("school.students"));
+    }
+
+    @Test
+    void restore_shouldKeepDataAndFail_whenSnapshotIsTruncated(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("school.snapshot");
+        new SchoolSnapshot(dataSource, 64).dump(file);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length / 2));
+        Map<String, List<String>> before = content();
+
+        assertThrows(IOException.class, () -> new SchoolSnapshot(dataSource, 64).restore(file));
+
+        assertEquals(before, content());
+        jdbcTemplate.update("insert into school.students_courses (student_id, course_id) values (null, null)");
+        assertThrows(RuntimeException.class, () -> jdbcTemplate.update(
+                "insert into school.students (student_id, group_id) values (random_uuid(), random_uuid())"));
+    }
+
+    @Test
+    void restore_shouldRejectOtherFiles(@TempDir Path directory) throws Exception {
+        Path file = Files.writeString(directory.resolve("school.sql"), "insert into school.groups values (1);");
+
+        assertThrows(IOException.class, () -> new SchoolSnapshot(dataSource, 64).restore(file));
+    }
+
+    private Map<String, List<String>> content() {
+        return SchoolSnapshot.TABLES.stream().collect(Collectors.toMap(table -> table,
+                table -> jdbcTemplate.queryForList("select * from " + table).stream()
+                        .map(Object::toString)
+                        .sorted()
+                        .collect(Collectors.toList())));
+    }
+}
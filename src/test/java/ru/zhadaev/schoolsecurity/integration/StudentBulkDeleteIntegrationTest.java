@@ -0,0 +1,132 @@
+package ru.zhadaev.schoolsecurity.integration;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestConstructor;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.zhadaev.schoolsecurity.service.StudentService;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@RequiredArgsConstructor
+@ActiveProfiles("test")
+@TestConstructor(autowireMode = TestConstructor.AutowireMode.ALL)
+@TestPropertySource(properties = "bulk.delete-chunk-size=64")
+@SpyBean(StudentService.class)
+@Sql({
+        "classpath:schemaIntegrationTest.sql",
+        "classpath:dataIntegrationTest.sql"
+})
+@Sql(
+        scripts = {"classpath:schemaDropIntegrationTest.sql"},
+        executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD
+)
+@WithMockUser(username = "admin", password = "adminPass", authorities = "STUDENT_DELETE")
+public class StudentBulkDeleteIntegrationTest {
+
+    private final String GROUP_ID = "46fa82ce-4e6d-45ae-a4e4-914971f1eb4f";
+    private final String COURSE_ID = "1a94740f-cab8-4522-91fa-ad996c72b92d";
+
+    private final MockMvc mockMvc;
+    private final JdbcTemplate jdbcTemplate;
+    private final StudentService studentService;
+
+    @AfterEach
+    void countersShouldNotDrift() {
+        assertEquals(0, count("select count(*) from school.groups g where student_count <> " +
+                "(select count(*) from school.students s where s.group_id = g.group_id)"));
+        assertEquals(0, count("select count(*) from school.courses c where enrollment_count <> " +
+                "(select count(*) from school.students_courses sc where sc.course_id = c.course_id)"));
+        assertEquals(0, count("select count(*) from school.students_courses where student_id is null"));
+    }
+
+    @Test
+    void deleteAll_shouldDeleteOnlyStudentsOfGroup_whenGroupIdIsSet() throws Exception {
+        long inGroup = count("select count(*) from school.students where group_id = '" + GROUP_ID + "'");
+        long all = count("select count(*) from school.students");
+
+        mockMvc.perform(delete("/api/students").param("groupId", GROUP_ID))
+                .andExpect(status().isOk());
+
+        assertEquals(0, count("select count(*) from school.students where group_id = '" + GROUP_ID + "'"));
+        assertEquals(all - inGroup, count("select count(*) from school.students"));
+    }
+
+    @Test
+    void deleteAll_shouldDeleteOnlyStudentsOfCourse_whenCourseIdIsSet() throws Exception {
+        long onCourse = count("select count(*) from school.students_courses where course_id = '" + COURSE_ID + "'");
+        long all = count("select count(*) from school.students");
+
+        mockMvc.perform(delete("/api/students").param("courseId", COURSE_ID))
+                .andExpect(status().isOk());
+
+        assertEquals(0, count("select count(*) from school.students_courses where course_id = '" + COURSE_ID + "'"));
+        assertEquals(all - onCourse, count("select count(*) from school.students"));
+    }
+
+    @Test
+    void deleteAll_shouldDeleteRemainingChunksInBackground_whenMoreStudentsThanChunkSize() throws Exception {
+        mockMvc.perform(delete("/api/students"))
+                .andExpect(status().isAccepted());
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (count("select count(*) from school.students") > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals(0, count("select count(*) from school.students"));
+        assertEquals(0, count("select count(*) from school.students_courses"));
+        assertTrue(count("select count(*) from school.groups") > 0);
+    }
+
+    @Test
+    void deleteAll_shouldReturnConflict_whenBulkDeleteIsAlreadyRunning() throws Exception {
+        CountDownLatch backgroundStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> invocation.callRealMethod())
+                .doAnswer(invocation -> {
+                    backgroundStarted.countDown();
+                    release.await();
+                    return invocation.callRealMethod();
+                })
+                .when(studentService).deleteChunk(any(), any(), anyInt());
+
+        mockMvc.perform(delete("/api/students"))
+                .andExpect(status().isAccepted());
+        backgroundStarted.await();
+        mockMvc.perform(delete("/api/students").param("groupId", GROUP_ID))
+                .andExpect(status().isConflict());
+        release.countDown();
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        int next;
+        do {
+            Thread.sleep(50);
+            next = mockMvc.perform(delete("/api/students")).andReturn().getResponse().getStatus();
+        } while (next == 409 && System.currentTimeMillis() < deadline);
+        assertEquals(200, next);
+        assertEquals(0, count("select count(*) from school.students"));
+    }
+
+    private long count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+}
@@ -8,22 +8,37 @@ import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.TestConstructor;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import ru.zhadaev.schoolsecurity.api.dto.CourseDto;
 import ru.zhadaev.schoolsecurity.api.dto.GroupDto;
 import ru.zhadaev.schoolsecurity.api.dto.StudentDto;
+import ru.zhadaev.schoolsecurity.api.paging.KeysetCursor;
+import ru.zhadaev.schoolsecurity.service.StudentService;
 
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -60,54 +75,44 @@ public class StudentIntegrationTest {
     private final String COURSE_DESCRIPTION_3 = "Subject Computer science";
 
     private final MockMvc mockMvc;
+    private final JdbcTemplate jdbcTemplate;
+    private final StudentService studentService;
 
     @Nested
     @DisplayName("Tests for finding an student")
     class FindTest {
         @Test
         void findAll_shouldReturnFirstPageOfListOfTwoValidStudentDto_whenNumberCoursesIsNull() throws Exception {
-            String id1 = "b0d48471-179e-4ac8-b0f2-741e3eededbd";
-            String firstName1 = "George";
-            String lastName1 = "Morgan";
-            String groupId1 = "46fa82ce-4e6d-45ae-a4e4-914971f1eb4f";
-            String groupName1 = "YT-80";
-            String courseId1_1 = "51d5f402-7150-4bab-af7c-816bdba735f5";
-            String courseName1_1 = "Astronomy";
-            String courseDescription1_1 = "Subject Astronomy";
+            String id1 = "031a8103-f3be-4f90-bad0-049b16e2ad0b";
+            String firstName1 = "Harry";
+            String lastName1 = "Green";
+            String groupId1 = "e55a0b30-cb32-4b4e-87a3-51163b920a19";
+            String groupName1 = "LU-80";
+            String courseId1_1 = "1a94740f-cab8-4522-91fa-ad996c72b92d";
+            String courseName1_1 = "Computer science";
+            String courseDescription1_1 = "Subject Computer science";
             String courseId1_2 = "acffffde-c76d-4618-9a32-2e79d5cd087e";
             String courseName1_2 = "Music";
             String courseDescription1_2 = "Subject Music";
-            String courseId1_3 = "99c44d20-1056-49a7-a3a4-2e86cf4e0688";
-            String courseName1_3 = "Botany";
-            String courseDescription1_3 = "Subject Botany";
-
-            String id2 = "a242b083-8b95-4d37-a932-5badc4a7053b";
-            String firstName2 = "Emily";
-            String lastName2 = "Lewis";
-            String groupId2 = "46fa82ce-4e6d-45ae-a4e4-914971f1eb4f";
-            String groupName2 = "YT-80";
-            String courseId2_1 = "1a94740f-cab8-4522-91fa-ad996c72b92d";
-            String courseName2_1 = "Computer science";
-            String courseDescription2_1 = "Subject Computer science";
-            String courseId2_2 = "51d5f402-7150-4bab-af7c-816bdba735f5";
-            String courseName2_2 = "Astronomy";
-            String courseDescription2_2 = "Subject Astronomy";
-            String courseId2_3 = "1565f8d4-35bb-4c48-9045-c91acdb753ec";
-            String courseName2_3 = "Chemistry";
-            String courseDescription2_3 = "Subject Chemistry";
+
+            String id2 = "06886260-6cd5-43a3-b04a-e9278c78e62f";
+            String firstName2 = "Mia";
+            String lastName2 = "Morgan";
+            String groupId2 = "10562d54-0acc-4fbf-baba-98c0aa77a900";
+            String groupName2 = "SV-51";
+            String courseId2_1 = "df5b330d-5f6a-4223-8d0b-b71f45636b9f";
+            String courseName2_1 = "Literature";
+            String courseDescription2_1 = "Subject Literature";
 
             GroupDto group1 = groupDtoCreate(groupId1, groupName1);
             Set<CourseDto> courses1 = new LinkedHashSet<>();
             courses1.add(courseDtoCreate(courseId1_1, courseName1_1, courseDescription1_1));
             courses1.add(courseDtoCreate(courseId1_2, courseName1_2, courseDescription1_2));
-            courses1.add(courseDtoCreate(courseId1_3, courseName1_3, courseDescription1_3));
             StudentDto student1 = studentDtoCreate(id1, firstName1, lastName1, group1, courses1);
 
             GroupDto group2 = groupDtoCreate(groupId2, groupName2);
             Set<CourseDto> courses2 = new LinkedHashSet<>();
             courses2.add(courseDtoCreate(courseId2_1, courseName2_1, courseDescription2_1));
-            courses2.add(courseDtoCreate(courseId2_2, courseName2_2, courseDescription2_2));
-            courses2.add(courseDtoCreate(courseId2_3, courseName2_3, courseDescription2_3));
             StudentDto student2 = studentDtoCreate(id2, firstName2, lastName2, group2, courses2);
 
             List<StudentDto> expected = new LinkedList<>();
@@ -246,6 +251,123 @@ public class StudentIntegrationTest {
             assertEquals(expected, actual);
         }
 
+        @Test
+        void findAll_shouldReturnNoMoreThanMaxPageSizeStudentDto_whenPageSizeIsTooLarge() throws Exception {
+            MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
+            params.add("page", "0");
+            params.add("size", "150");
+
+            mockMvc.perform(get("/api/students")
+                    .params(params))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(50));
+        }
+
+        @Test
+        void findAllAfter_shouldReturnEveryStudentOnce_whenAllPagesAreFollowed() throws Exception {
+            List<StudentDto> actual = new ArrayList<>();
+            String after = null;
+            do {
+                MockHttpServletRequestBuilder request = get("/api/students").param("limit", "30");
+                if (after != null) {
+                    request.param("after", after);
+                }
+                MvcResult result = mockMvc.perform(request)
+                        .andExpect(status().isOk())
+                        .andReturn();
+                String responseBody = result.getResponse().getContentAsString();
+                ObjectMapper objectMapper = new ObjectMapper();
+                actual.addAll(objectMapper.readValue(responseBody, new TypeReference<List<StudentDto>>() {
+                }));
+                after = result.getResponse().getHeader(KeysetCursor.NEXT_CURSOR_HEADER);
+            } while (after != null);
+
+            List<StudentDto> expected = new ArrayList<>(actual);
+            expected.sort(Comparator.comparing(StudentDto::getLastName)
+                    .thenComparing(student -> student.getId().toString()));
+            assertEquals(200, actual.size());
+            assertEquals(200, actual.stream().map(StudentDto::getId).distinct().count());
+            assertEquals(expected, actual);
+        }
+
+        @Test
+        void findAllAfter_shouldReturnEveryStudentOnce_whenPagesEndOnStudentsWithoutLastName() throws Exception {
+            int withoutLastName = jdbcTemplate.update("update school.students set last_name = null where last_name = ?",
+                    LAST_NAME);
+            List<StudentDto> actual = new ArrayList<>();
+            String after = null;
+            do {
+                MockHttpServletRequestBuilder request = get("/api/students").param("limit", "4");
+                if (after != null) {
+                    request.param("after", after);
+                }
+                MvcResult result = mockMvc.perform(request)
+                        .andExpect(status().isOk())
+                        .andReturn();
+                actual.addAll(new ObjectMapper().readValue(result.getResponse().getContentAsString(),
+                        new TypeReference<List<StudentDto>>() {
+                        }));
+                after = result.getResponse().getHeader(KeysetCursor.NEXT_CURSOR_HEADER);
+            } while (after != null);
+
+            List<StudentDto> expected = new ArrayList<>(actual);
+            expected.sort(Comparator.comparing(StudentDto::getLastName, Comparator.nullsLast(Comparator.naturalOrder()))
+                    .thenComparing(student -> student.getId().toString()));
+            assertTrue(withoutLastName > 4);
+            assertEquals(withoutLastName, actual.stream().filter(student -> student.getLastName() == null).count());
+            assertEquals(200, actual.size());
+            assertEquals(200, actual.stream().map(StudentDto::getId).distinct().count());
+            assertEquals(expected, actual);
+        }
+
+        @Test
+        void findAllAfter_shouldReturnValidError_whenCursorIsNotValid() throws Exception {
+            mockMvc.perform(get("/api/students")
+                    .param("limit", "10")
+                    .param("after", "not-a-cursor"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.message").value("Invalid cursor 'not-a-cursor'"));
+        }
+
+        @Test
+        void export_shouldWriteEveryStudentAsJsonLine_whenRelationsAreIncluded() throws Exception {
+            MvcResult result = mockMvc.perform(get("/api/students/export"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                    .andReturn();
+
+            ObjectMapper objectMapper = new ObjectMapper();
+            List<StudentDto> actual = new ArrayList<>();
+            for (String line : result.getResponse().getContentAsString().split("\n")) {
+                actual.add(objectMapper.readValue(line, StudentDto.class));
+            }
+            StudentDto expected = actual.stream()
+                    .filter(student -> student.getId().equals(UUID.fromString(ID)))
+                    .findFirst()
+                    .orElseThrow();
+            assertEquals(200, actual.size());
+            assertEquals(200, actual.stream().map(StudentDto::getId).distinct().count());
+            assertEquals(GROUP_NAME, expected.getGroup().getName());
+            assertEquals(3, expected.getCourses().size());
+        }
+
+        @Test
+        void export_shouldWriteStudentsWithoutGroupAndCourses_whenRelationsAreNotIncluded() throws Exception {
+            MvcResult result = mockMvc.perform(get("/api/students/export")
+                    .param("includeRelations", "false"))
+                    .andExpect(status().isOk())
+                    .andReturn();
+
+            ObjectMapper objectMapper = new ObjectMapper();
+            String[] lines = result.getResponse().getContentAsString().split("\n");
+            assertEquals(200, lines.length);
+            for (String line : lines) {
+                StudentDto student = objectMapper.readValue(line, StudentDto.class);
+                assertNull(student.getGroup());
+                assertNull(student.getCourses());
+            }
+        }
+
         @Test
         void findById_shouldReturnValidStudentDto_whenEntityFoundById() throws Exception {
             StudentDto expected = studentDtoCreate(ID, FIRST_NAME, LAST_NAME,
@@ -282,6 +404,73 @@ public class StudentIntegrationTest {
     @DisplayName("Tests for creation an student")
     class CreateTest {
 
+        @Test
+        void saveAll_shouldSaveValidStudentsAndReportInvalidOnes_whenBodyIsNdjson() throws Exception {
+            String content = String.join("\n",
+                    "{\"firstName\":\"Anna\",\"lastName\":\"Smith\",\"group\":{\"id\":\"" + GROUP_ID + "\"}}",
+                    "{\"firstName\":\"A\",\"lastName\":\"Brown\"}",
+                    "{\"firstName\":\"Tom\",\"lastName\":\"Clark\",\"courses\":[{\"id\":\"" + COURSE_ID_1 + "\"}]}",
+                    "{\"firstName\":\"Kate\",\"lastName\":\"Lewis\",\"group\":{\"id\":\"00000000-0000-0000-0000-000000000000\"}}",
+                    "{\"firstName\":\"Jack\",\"lastName\":\"White\"}");
+
+            mockMvc.perform(post("/api/students/bulk")
+                    .contentType("application/x-ndjson")
+                    .content(content))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.received").value(5))
+                    .andExpect(jsonPath("$.saved").value(3))
+                    .andExpect(jsonPath("$.errors.length()").value(2))
+                    .andExpect(jsonPath("$.errors[0].index").value(1))
+                    .andExpect(jsonPath("$.errors[0].violations[0].message")
+                            .value("The student's first name must consist of at least two characters"))
+                    .andExpect(jsonPath("$.errors[1].index").value(3));
+
+            MvcResult result = mockMvc.perform(get("/api/students/export")
+                    .param("includeRelations", "false"))
+                    .andReturn();
+            assertEquals(203, result.getResponse().getContentAsString().split("\n").length);
+        }
+
+        @Test
+        void saveAll_shouldSaveEveryStudent_whenBodyIsJsonArray() throws Exception {
+            List<StudentDto> students = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                StudentDto student = new StudentDto();
+                student.setFirstName(FIRST_NAME);
+                student.setLastName(LAST_NAME + i);
+                students.add(student);
+            }
+            ObjectMapper objectMapper = new ObjectMapper();
+            String content = objectMapper.writeValueAsString(students);
+
+            mockMvc.perform(post("/api/students/bulk")
+                    .contentType("application/json")
+                    .content(content))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.received").value(5))
+                    .andExpect(jsonPath("$.saved").value(5))
+                    .andExpect(jsonPath("$.errors.length()").value(0));
+        }
+
+        @Test
+        void saveAll_shouldReportNullAndUnsavableItems_whenOtherItemsAreValid() throws Exception {
+            String content = "[" + String.join(",",
+                    "{\"firstName\":\"Anna\",\"lastName\":\"Smith\"}",
+                    "null",
+                    "{\"firstName\":\"Kate\",\"lastName\":\"Lewis\",\"group\":{\"name\":\"XX-99\"}}",
+                    "{\"firstName\":\"Jack\",\"lastName\":\"White\"}") + "]";
+
+            mockMvc.perform(post("/api/students/bulk")
+                    .contentType("application/json")
+                    .content(content))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.received").value(4))
+                    .andExpect(jsonPath("$.saved").value(2))
+                    .andExpect(jsonPath("$.errors.length()").value(2))
+                    .andExpect(jsonPath("$.errors[0].index").value(1))
+                    .andExpect(jsonPath("$.errors[1].index").value(2));
+        }
+
         @Test
         void save_shouldReturnValidStudentDto_whenNameIsValid() throws Exception {
             StudentDto savedStudent = new StudentDto();
@@ -365,6 +554,30 @@ public class StudentIntegrationTest {
     @DisplayName("Tests for update an student")
     class UpdateTest {
 
+        @Test
+        @WithMockUser(username = "admin", password = "adminPass",
+                authorities = {"STUDENT_UPDATE", "STUDENT_READ", "GROUP_READ"})
+        void updatePatch_shouldMoveStudentCount_whenGroupIsChanged() throws Exception {
+            String studentId = "63e116a1-3c8a-49dc-89dd-1c14739aaee2";
+            String oldGroupId = "6fa657c1-e8e6-405c-94d5-7314ad758039";
+            String content = "{\"group\":{\"id\":\"" + GROUP_ID + "\"}}";
+
+            mockMvc.perform(patch("/api/students/{id}", studentId)
+                    .contentType("application/json")
+                    .content(content))
+                    .andExpect(status().isAccepted());
+
+            mockMvc.perform(get("/api/groups")
+                    .param("numberStudents", "12"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[*].id").value(containsInAnyOrder(
+                            "0cbb0226-1ae7-4c93-8bd9-e49766ead6a4", oldGroupId)));
+            mockMvc.perform(get("/api/groups")
+                    .param("numberStudents", "24"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[?(@.id == '" + GROUP_ID + "')]").doesNotExist());
+        }
+
         @Test
         void updatePut_shouldReturnValidStudentDto_whenEntityFoundById() throws Exception {
             String updatedFirstName = "Ivan";
@@ -390,6 +603,53 @@ public class StudentIntegrationTest {
             assertEquals(updatedStudent, actual);
         }
 
+        @Test
+        void updatePut_shouldKeepCoursesAndCountersConsistent_whenSameStudentIsReplacedConcurrently() throws Exception {
+            List<Set<CourseDto>> courseSets = List.of(
+                    Set.of(courseDtoCreate(COURSE_ID_1, COURSE_NAME_1, COURSE_DESCRIPTION_1),
+                            courseDtoCreate(COURSE_ID_2, COURSE_NAME_2, COURSE_DESCRIPTION_2)),
+                    Set.of(courseDtoCreate(COURSE_ID_2, COURSE_NAME_2, COURSE_DESCRIPTION_2),
+                            courseDtoCreate(COURSE_ID_3, COURSE_NAME_3, COURSE_DESCRIPTION_3)),
+                    Set.of(courseDtoCreate(COURSE_ID_1, COURSE_NAME_1, COURSE_DESCRIPTION_1),
+                            courseDtoCreate(COURSE_ID_3, COURSE_NAME_3, COURSE_DESCRIPTION_3)));
+            ExecutorService executor = Executors.newFixedThreadPool(courseSets.size());
+            try {
+                List<Future<?>> writers = new ArrayList<>();
+                for (Set<CourseDto> courses : courseSets) {
+                    writers.add(executor.submit(() -> {
+                        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                                "admin", null, AuthorityUtils.createAuthorityList("STUDENT_UPDATE")));
+                        try {
+                            for (int i = 0; i < 50; i++) {
+                                StudentDto student = new StudentDto();
+                                student.setFirstName(FIRST_NAME);
+                                student.setLastName(LAST_NAME);
+                                student.setGroup(groupDtoCreate(GROUP_ID, GROUP_NAME));
+                                student.setCourses(courses);
+                                studentService.updatePut(student, UUID.fromString(ID));
+                            }
+                        } finally {
+                            SecurityContextHolder.clearContext();
+                        }
+                    }));
+                }
+                for (Future<?> writer : writers) {
+                    writer.get();
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+
+            Set<UUID> courseIds = new HashSet<>(jdbcTemplate.queryForList(
+                    "select course_id from school.students_courses where student_id = ?", UUID.class, UUID.fromString(ID)));
+            assertTrue(courseSets.stream().anyMatch(courses ->
+                    courses.stream().map(CourseDto::getId).collect(Collectors.toSet()).equals(courseIds)), courseIds.toString());
+            assertEquals(0, jdbcTemplate.queryForObject("select count(*) from school.courses c where enrollment_count <> " +
+                    "(select count(*) from school.students_courses sc where sc.course_id = c.course_id)", Long.class));
+            assertEquals(0, jdbcTemplate.queryForObject("select count(*) from school.groups g where student_count <> " +
+                    "(select count(*) from school.students s where s.group_id = g.group_id)", Long.class));
+        }
+
         @Test
         void updatePut_shouldReturnNotFoundError_whenEntityNotFoundById() throws Exception {
             String badId = "8e2e1511-8105-441f-97e8-5bce88c0267b";
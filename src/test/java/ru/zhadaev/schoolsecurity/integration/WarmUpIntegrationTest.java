@@ -0,0 +1,65 @@
+package ru.zhadaev.schoolsecurity.integration;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestConstructor;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.zhadaev.schoolsecurity.config.WarmUp;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@RequiredArgsConstructor
+@ActiveProfiles("test")
+@TestConstructor(autowireMode = TestConstructor.AutowireMode.ALL)
+@TestPropertySource(properties = {
+        "test.data.enable=true",
+        "test.data.async=true",
+        "startup.warm-up.enable=true",
+        "startup.warm-up.rounds=20",
+        "startup.warm-up.threads=2",
+        "spring.datasource.url=jdbc:h2:mem:warmupdb"
+})
+public class WarmUpIntegrationTest {
+
+    private final MockMvc mockMvc;
+    private final JdbcTemplate jdbcTemplate;
+    private final WarmUp warmUp;
+
+    @Test
+    void warmUp_shouldRunAllRoundsWithoutChangingData_beforeReportingReady() throws Exception {
+        long deadline = System.currentTimeMillis() + 60_000;
+        int status;
+        do {
+            status = mockMvc.perform(get("/actuator/health/readiness")).andReturn().getResponse().getStatus();
+            if (status != 200) {
+                Thread.sleep(50);
+            }
+        } while (status != 200 && System.currentTimeMillis() < deadline);
+
+        assertEquals(200, status);
+        assertEquals(WarmUp.State.DONE, warmUp.getState());
+        Map<String, Object> report = warmUp.getReport();
+        assertEquals(20, report.get("rounds"), report.toString());
+        assertTrue((Integer) report.get("connections") >= 1);
+        assertTrue(report.containsKey("firstRoundMillis"));
+        assertTrue(report.containsKey("lastRoundsMedianMillis"));
+        assertEquals(10, count("select count(*) from school.groups"));
+        assertEquals(0, count("select count(*) from school.groups g where student_count <> " +
+                "(select count(*) from school.students s where s.group_id = g.group_id)"));
+    }
+
+    private long count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+}
@@ -5,15 +5,15 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import ru.zhadaev.schoolsecurity.api.dto.GroupDto;
 import ru.zhadaev.schoolsecurity.api.mappers.GroupMapper;
 import ru.zhadaev.schoolsecurity.dao.entities.Group;
 import ru.zhadaev.schoolsecurity.dao.repositories.GroupRepository;
 import ru.zhadaev.schoolsecurity.exception.NotFoundException;
+import ru.zhadaev.schoolsecurity.exception.PreconditionFailedException;
 
 import java.util.Arrays;
 import java.util.List;
@@ -36,6 +36,8 @@ class GroupServiceTest {
     private GroupRepository groupRepository;
     @Mock
     private GroupMapper mapper;
+    @Mock
+    private ChangeStamps changeStamps;
     @InjectMocks
     private GroupService groupService;
 
@@ -62,14 +64,14 @@ class GroupServiceTest {
         void updatePut_shouldReturnValidGroupDto_whenEntityFoundById() {
             GroupDto groupDto = groupDtoCreate(ID_1, NAME_1);
             Group group = groupCreate(ID_1, NAME_1);
-            doReturn(true).when(groupRepository).existsById(ID1);
+            doReturn(Optional.of(group)).when(groupRepository).findById(ID1);
             doReturn(group).when(groupRepository).save(group);
             doReturn(group).when(mapper).toEntity(groupDto);
             doReturn(groupDto).when(mapper).toDto(group);
 
             GroupDto actual = groupService.updatePut(groupDto, ID1);
 
-            verify(groupRepository, times(1)).existsById(ID1);
+            verify(groupRepository, times(1)).findById(ID1);
             verify(groupRepository, times(1)).save(group);
             verify(mapper, times(1)).toEntity(groupDto);
             verify(mapper, times(1)).toDto(group);
@@ -80,10 +82,22 @@ class GroupServiceTest {
         void updatePut_shouldThrowNotFoundException_whenEntityNotFoundById() {
             GroupDto groupDto = groupDtoCreate(ID_1, NAME_1);
 
-            doReturn(false).when(groupRepository).existsById(ID1);
+            doReturn(Optional.empty()).when(groupRepository).findById(ID1);
 
             assertThrows(NotFoundException.class, () -> groupService.updatePut(groupDto, ID1));
-            verify(groupRepository, times(1)).existsById(ID1);
+            verify(groupRepository, times(1)).findById(ID1);
+        }
+
+        @Test
+        void updatePut_shouldThrowPreconditionFailedException_whenVersionDiffers() {
+            GroupDto groupDto = groupDtoCreate(ID_1, NAME_1);
+
+            Group group = groupCreate(ID_1, NAME_1);
+            group.setVersion(2);
+            doReturn(Optional.of(group)).when(groupRepository).findById(ID1);
+
+            assertThrows(PreconditionFailedException.class, () -> groupService.updatePut(groupDto, ID1, 1L));
+            verify(groupRepository, never()).save(any());
         }
 
         @Test
@@ -91,18 +105,15 @@ class GroupServiceTest {
             GroupDto groupDto = groupDtoCreate(ID_1, NAME_1);
             Group group = groupCreate(ID_1, NAME_1);
             doReturn(Optional.of(group)).when(groupRepository).findById(ID1);
-            doReturn(group).when(groupRepository).save(group);
             doNothing().when(mapper).update(groupDto, group);
-            doReturn(group).when(mapper).toEntity(groupDto);
             doReturn(groupDto).when(mapper).toDto(group);
 
             GroupDto actual = groupService.updatePatch(groupDto, ID1);
 
             verify(groupRepository, times(1)).findById(ID1);
-            verify(groupRepository, times(1)).save(group);
-            verify(mapper, times(1)).toEntity(groupDto);
+            verify(groupRepository, never()).save(any());
             verify(mapper, times(1)).update(groupDto, group);
-            verify(mapper, times(2)).toDto(group);
+            verify(mapper, times(1)).toDto(group);
             assertEquals(actual, groupDto);
         }
 
@@ -150,7 +161,7 @@ class GroupServiceTest {
             Integer pageNumber = 1;
             Integer size = 2;
             Integer numberStudent = 20;
-            Pageable pageable = PageRequest.of(pageNumber, size);
+            Pageable pageable = PageRequest.of(pageNumber, size, Sort.by("id"));
             List<GroupDto> groupsDto = Arrays.asList(
                     groupDtoCreate(ID_1, NAME_1),
                     groupDtoCreate(ID_2, NAME_2));
@@ -170,7 +181,7 @@ class GroupServiceTest {
             Integer pageNumber = 1;
             Integer size = 2;
             Integer numberStudent = null;
-            Pageable pageable = PageRequest.of(pageNumber, size);
+            Pageable pageable = PageRequest.of(pageNumber, size, Sort.by("id"));
 
             List<GroupDto> groupsDto = Arrays.asList(
                     groupDtoCreate(ID_1, NAME_1),
@@ -180,13 +191,11 @@ class GroupServiceTest {
                     groupCreate(ID_1, NAME_1),
                     groupCreate(ID_2, NAME_2));
 
-            Page<Group> page = new PageImpl<>(groups);
-
-            doReturn(page).when(groupRepository).findAll(pageable);
+            doReturn(groups).when(groupRepository).findAllBy(pageable);
             doReturn(groupsDto).when(mapper).toDto(groups);
 
             List<GroupDto> actual = groupService.findAll(numberStudent, pageable);
-            verify(groupRepository, times(1)).findAll(pageable);
+            verify(groupRepository, times(1)).findAllBy(pageable);
             assertEquals(actual, groupsDto);
         }
 
@@ -215,21 +224,21 @@ class GroupServiceTest {
 
         @Test
         void deleteById_shouldExecutedOneTime_whenEntityFoundById() {
-            doReturn(true).when(groupRepository).existsById(ID1);
-            doNothing().when(groupRepository).deleteById(ID1);
+            doReturn(1).when(groupRepository).deleteByIdInBatch(ID1);
 
             groupService.deleteById(ID1);
 
-            verify(groupRepository, times(1)).deleteById(ID1);
+            verify(groupRepository, times(1)).deleteByIdInBatch(ID1);
+            verify(groupRepository, never()).existsById(ID1);
         }
 
         @Test
         void deleteById_shouldThrowNotFoundException_whenEntityNotFoundById() {
-            doReturn(false).when(groupRepository).existsById(ID1);
+            doReturn(0).when(groupRepository).deleteByIdInBatch(ID1);
 
             assertThrows(NotFoundException.class, () -> groupService.deleteById(ID1));
-            verify(groupRepository, times(1)).existsById(ID1);
-            verify(groupRepository, times(0)).deleteById(ID1);
+            verify(groupRepository, times(1)).deleteByIdInBatch(ID1);
+            verify(groupRepository, never()).existsById(ID1);
           }
 
         @Test
@@ -256,11 +265,11 @@ class GroupServiceTest {
 
         @Test
         void deleteAll_shouldExecutedOneTime() {
-            doNothing().when(groupRepository).deleteAll();
-
             groupService.deleteAll();
 
-            verify(groupRepository, times(1)).deleteAll();
+            verify(groupRepository, times(1)).removeAllStudents();
+            verify(groupRepository, times(1)).deleteAllInBatch();
+            verify(groupRepository, never()).deleteAll();
         }
     }
 
@@ -1,3 +1,5 @@
+drop table if exists school.change_stamps;
+
 drop table if exists school.students_courses;
 
 drop table if exists school.students;
@@ -2,15 +2,19 @@ create schema school;
 
 create table if not exists school.groups
 (
-    group_id   uuid primary key,
-    group_name varchar(255) null
+    group_id      uuid primary key,
+    group_name    varchar(255) null,
+    student_count integer      not null default 0,
+    version       bigint       not null default 0
 );
 
 create table if not exists school.courses
 (
     course_id          uuid primary key,
     course_name        varchar(255) null,
-    course_description text         null
+    course_description text         null,
+    enrollment_count   integer      not null default 0,
+    version            bigint       not null default 0
 );
 
 create table if not exists school.students
@@ -19,6 +23,7 @@ create table if not exists school.students
     group_id   uuid         null,
     first_name varchar(255) null,
     last_name  varchar(255) null,
+    version    bigint       not null default 0,
     foreign key (group_id) references school.groups (group_id) on delete set null
 );
 
@@ -34,7 +39,8 @@ create table if not exists school.students_courses
 create table if not exists school.permissions
 (
     permission_name varchar(255) null primary key,
-    permission_description varchar(255) null
+    permission_description varchar(255) null,
+    version bigint not null default 0
 );
 
 create table if not exists school.users
@@ -43,6 +49,7 @@ create table if not exists school.users
     user_login varchar(255) null,
     user_password varchar(255) null,
     permission_name varchar(255) null,
+    version bigint not null default 0,
     foreign key (permission_name) references school.permissions (permission_name) on delete set null
 );
 
@@ -53,4 +60,24 @@ create table if not exists school.users_permissions
     foreign key (user_id) references school.users (user_id) on delete set null,
     foreign key (permission_name) references school.permissions (permission_name) on delete set null,
     unique (user_id, permission_name)
-)
+);
+
+create table if not exists school.change_stamps
+(
+    table_name varchar(64) primary key,
+    stamp      bigint      not null default 0
+);
+
+insert into school.change_stamps (table_name) values ('courses'), ('groups'), ('students'), ('permissions');
+
+create index if not exists groups_name_id_idx on school.groups (group_name, group_id);
+
+create index if not exists courses_name_id_idx on school.courses (course_name, course_id);
+
+create index if not exists students_last_name_id_idx on school.students (last_name, student_id);
+
+create index if not exists users_login_id_idx on school.users (user_login, user_id);
+
+create index if not exists groups_student_count_idx on school.groups (student_count);
+
+create index if not exists students_courses_course_id_student_id_idx on school.students_courses (course_id, student_id);